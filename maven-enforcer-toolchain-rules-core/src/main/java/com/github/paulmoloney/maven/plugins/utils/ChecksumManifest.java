@@ -0,0 +1,168 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * SHA-256 checksums of files relative to a directory, read and written in the format of sha256sum
+ * i.e. one <code>hex  relative/path</code> line per file.
+ * @author Paul Moloney
+ *
+ */
+public final class ChecksumManifest {
+
+    /**
+     * Files are mapped and digested a window at a time so large files such as lib/modules need no heap copy
+     */
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private ChecksumManifest()
+    {
+    }
+
+    /**
+     * @param file a sha256sum style manifest
+     * @return the checksums by relative path
+     * @throws IOException if the file can not be read or holds an invalid line
+     */
+    public static SortedMap<String, String> read(File file) throws IOException
+    {
+        SortedMap<String, String> checksums = new TreeMap<String, String>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try
+        {
+            int number = 0;
+            for (String line = in.readLine(); null != line; line = in.readLine())
+            {
+                number++;
+                if ("".equals(line.trim()) || line.startsWith("#"))
+                {
+                    continue;
+                }
+                int separator = line.indexOf(' ');
+                if (64 != separator || line.length() < separator + 3)
+                {
+                    throw new IOException("Invalid checksum line " + number + " in " + file);
+                }
+                // a * marks a binary mode entry, which is the same thing for sha256
+                String path = line.substring(separator + 2);
+                checksums.put(path.replace('\\', '/'), line.substring(0, separator).toLowerCase());
+            }
+        }
+        finally
+        {
+            IOUtil.close(in);
+        }
+        return checksums;
+    }
+
+    /**
+     * Writes the checksums sorted by path, through a temporary file renamed into place
+     * @param checksums by relative path
+     * @param file
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Map<String, String> checksums, File file) throws IOException
+    {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+        {
+            throw new IOException("Unable to create " + parent);
+        }
+        File temp = File.createTempFile(file.getName(), ".tmp", parent);
+        Writer out = new OutputStreamWriter(new FileOutputStream(temp), "UTF-8");
+        try
+        {
+            for (Map.Entry<String, String> checksum : new TreeMap<String, String>(checksums).entrySet())
+            {
+                out.write(checksum.getValue() + "  " + checksum.getKey() + "\n");
+            }
+        }
+        finally
+        {
+            IOUtil.close(out);
+        }
+        if (!temp.renameTo(file))
+        {
+            file.delete();
+            if (!temp.renameTo(file))
+            {
+                temp.delete();
+                throw new IOException("Unable to write " + file);
+            }
+        }
+    }
+
+    /**
+     * @param file
+     * @return the lower case hex SHA-256 of the file content
+     * @throws IOException if the file can not be read
+     */
+    public static String sha256(File file) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            for (long position = 0; position < size; position += WINDOW)
+            {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position)));
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        byte[] bytes = digest.digest();
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
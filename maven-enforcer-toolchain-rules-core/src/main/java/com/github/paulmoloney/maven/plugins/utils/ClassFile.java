@@ -0,0 +1,504 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Minimal class file reader, only the constant pool, class names and the attributes the toolchain rules need
+ * are decoded.
+ * @author Paul Moloney
+ *
+ */
+public final class ClassFile {
+
+    public static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * The requires_flags of a requires clause only needed at compile time
+     */
+    public static final int ACC_STATIC_PHASE = 0x0040;
+
+    static final int CONSTANT_UTF8 = 1;
+    static final int CONSTANT_INTEGER = 3;
+    static final int CONSTANT_FLOAT = 4;
+    static final int CONSTANT_LONG = 5;
+    static final int CONSTANT_DOUBLE = 6;
+    static final int CONSTANT_CLASS = 7;
+    static final int CONSTANT_STRING = 8;
+    static final int CONSTANT_FIELDREF = 9;
+    static final int CONSTANT_METHODREF = 10;
+    static final int CONSTANT_INTERFACE_METHODREF = 11;
+    static final int CONSTANT_NAME_AND_TYPE = 12;
+    static final int CONSTANT_METHOD_HANDLE = 15;
+    static final int CONSTANT_METHOD_TYPE = 16;
+    static final int CONSTANT_DYNAMIC = 17;
+    static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    static final int CONSTANT_MODULE = 19;
+    static final int CONSTANT_PACKAGE = 20;
+
+    private final int majorVersion;
+
+    private final int minorVersion;
+
+    private final int[] tags;
+
+    /**
+     * Utf8 constants hold their String, every other constant holds its first index in the low and its
+     * second index (if any) in the high 16 bits
+     */
+    private final Object[] constants;
+
+    private String className;
+
+    private String superName;
+
+    private String[] interfaces;
+
+    private List<Member> fields;
+
+    private List<Member> methods;
+
+    private List<String> moduleRequires;
+
+    private List<String> staticModuleRequires;
+
+    private ClassFile(int majorVersion, int minorVersion, int constantCount)
+    {
+        this.majorVersion = majorVersion;
+        this.minorVersion = minorVersion;
+        this.tags = new int[constantCount];
+        this.constants = new Object[constantCount];
+    }
+
+    /**
+     * @param header at least the first 8 bytes of a class file
+     * @return the major version or -1 if the bytes do not start a class file
+     */
+    public static int getMajorVersion(byte[] header)
+    {
+        if (null == header || header.length < 8 || MAGIC != (((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16)
+            | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF)))
+        {
+            return -1;
+        }
+        return ((header[6] & 0xFF) << 8) | (header[7] & 0xFF);
+    }
+
+    /**
+     * @param majorVersion of a class file
+     * @return the feature release that introduced it, e.g. 8 for 52, and 1 to 4 for java 1.1 to 1.4
+     */
+    public static int getFeatureVersion(int majorVersion)
+    {
+        return Math.max(1, majorVersion - 44);
+    }
+
+    /**
+     * @param file a class file
+     * @return the parsed class
+     * @throws IOException if the file can not be read or is not a well formed class file
+     */
+    public static ClassFile parse(File file) throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            return parse(IOUtil.toByteArray(in));
+        }
+        finally
+        {
+            IOUtil.close(in);
+        }
+    }
+
+    /**
+     * @param bytes of a class file
+     * @return the parsed class
+     * @throws IOException if the bytes are not a well formed class file
+     */
+    public static ClassFile parse(byte[] bytes) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (MAGIC != in.readInt())
+        {
+            throw new IOException("Not a class file");
+        }
+        int minor = in.readUnsignedShort();
+        int major = in.readUnsignedShort();
+        ClassFile classFile = new ClassFile(major, minor, in.readUnsignedShort());
+        classFile.readConstantPool(in);
+        in.readUnsignedShort();
+        classFile.className = classFile.getClassConstant(in.readUnsignedShort());
+        classFile.superName = classFile.getClassConstant(in.readUnsignedShort());
+        classFile.interfaces = new String[in.readUnsignedShort()];
+        for (int i = 0; i < classFile.interfaces.length; i++)
+        {
+            classFile.interfaces[i] = classFile.getClassConstant(in.readUnsignedShort());
+        }
+        classFile.fields = classFile.readMembers(in);
+        classFile.methods = classFile.readMembers(in);
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++)
+        {
+            String name = classFile.getUtf8(in.readUnsignedShort());
+            int length = in.readInt();
+            if ("Module".equals(name))
+            {
+                byte[] body = new byte[length];
+                in.readFully(body);
+                classFile.readModule(new DataInputStream(new ByteArrayInputStream(body)));
+            }
+            else
+            {
+                skipFully(in, length);
+            }
+        }
+        return classFile;
+    }
+
+    private void readConstantPool(DataInputStream in) throws IOException
+    {
+        for (int i = 1; i < tags.length; i++)
+        {
+            int tag = in.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag)
+            {
+                case CONSTANT_UTF8:
+                    constants[i] = in.readUTF();
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                    in.readInt();
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.readLong();
+                    i++;
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    constants[i] = Integer.valueOf(in.readUnsignedShort());
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    int first = in.readUnsignedShort();
+                    constants[i] = Integer.valueOf(first | (in.readUnsignedShort() << 16));
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    in.readUnsignedByte();
+                    constants[i] = Integer.valueOf(in.readUnsignedShort());
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at " + i);
+            }
+        }
+    }
+
+    private void readModule(DataInputStream in) throws IOException
+    {
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int requiresCount = in.readUnsignedShort();
+        List<String> requires = new ArrayList<String>(requiresCount);
+        List<String> staticRequires = new ArrayList<String>();
+        for (int i = 0; i < requiresCount; i++)
+        {
+            String module = getUtf8(getIndex(in.readUnsignedShort(), 0));
+            requires.add(module);
+            if (0 != (in.readUnsignedShort() & ACC_STATIC_PHASE))
+            {
+                staticRequires.add(module);
+            }
+            in.readUnsignedShort();
+        }
+        moduleRequires = requires;
+        staticModuleRequires = staticRequires;
+        // exports, opens, uses and provides are not needed
+    }
+
+    private List<Member> readMembers(DataInputStream in) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        List<Member> members = new ArrayList<Member>(count);
+        for (int i = 0; i < count; i++)
+        {
+            int access = in.readUnsignedShort();
+            String name = getUtf8(in.readUnsignedShort());
+            members.add(new Member(access, name, getUtf8(in.readUnsignedShort())));
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++)
+            {
+                in.readUnsignedShort();
+                skipFully(in, in.readInt());
+            }
+        }
+        return members;
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException
+    {
+        int remaining = length;
+        while (remaining > 0)
+        {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0)
+            {
+                throw new IOException("Truncated class file");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    String getUtf8(int index) throws IOException
+    {
+        if (index <= 0 || index >= tags.length || CONSTANT_UTF8 != tags[index])
+        {
+            throw new IOException("Constant " + index + " is not a Utf8 entry");
+        }
+        return (String) constants[index];
+    }
+
+    /**
+     * @return the first (position 0) or second (position 1) index held by a constant
+     */
+    int getIndex(int index, int position) throws IOException
+    {
+        if (index <= 0 || index >= tags.length || !(constants[index] instanceof Integer))
+        {
+            throw new IOException("Constant " + index + " does not reference other constants");
+        }
+        int value = ((Integer) constants[index]).intValue();
+        return 0 == position ? value & 0xFFFF : value >>> 16;
+    }
+
+    String getClassConstant(int index) throws IOException
+    {
+        if (0 == index)
+        {
+            return null;
+        }
+        return getUtf8(getIndex(index, 0));
+    }
+
+    public int getMajorVersion()
+    {
+        return majorVersion;
+    }
+
+    public int getMinorVersion()
+    {
+        return minorVersion;
+    }
+
+    /**
+     * @return the internal name of the class e.g. java/lang/Object
+     */
+    public String getClassName()
+    {
+        return className;
+    }
+
+    /**
+     * @return the internal name of the super class or null for java/lang/Object and module descriptors
+     */
+    public String getSuperName()
+    {
+        return superName;
+    }
+
+    /**
+     * @return the internal names of the directly implemented interfaces
+     */
+    public String[] getInterfaces()
+    {
+        return interfaces.clone();
+    }
+
+    public List<Member> getFields()
+    {
+        return Collections.unmodifiableList(fields);
+    }
+
+    public List<Member> getMethods()
+    {
+        return Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * @return the internal names of all classes this class refers to, array types are reduced to their element class
+     */
+    public Set<String> getReferencedClasses() throws IOException
+    {
+        Set<String> classes = new TreeSet<String>();
+        for (int i = 1; i < tags.length; i++)
+        {
+            if (CONSTANT_CLASS == tags[i])
+            {
+                String name = getUtf8(getIndex(i, 0));
+                if (name.startsWith("["))
+                {
+                    int start = name.lastIndexOf('[') + 1;
+                    if ('L' != name.charAt(start))
+                    {
+                        continue;
+                    }
+                    name = name.substring(start + 1, name.length() - 1);
+                }
+                classes.add(name);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * @return the fields and methods this class refers to, as owner, name and descriptor
+     */
+    public List<Member> getReferencedMembers() throws IOException
+    {
+        List<Member> members = new ArrayList<Member>();
+        for (int i = 1; i < tags.length; i++)
+        {
+            int tag = tags[i];
+            if (CONSTANT_FIELDREF == tag || CONSTANT_METHODREF == tag || CONSTANT_INTERFACE_METHODREF == tag)
+            {
+                String owner = getClassConstant(getIndex(i, 0));
+                int nameAndType = getIndex(i, 1);
+                members.add(new Member(owner, 0, getUtf8(getIndex(nameAndType, 0)), getUtf8(getIndex(nameAndType, 1))));
+            }
+        }
+        return members;
+    }
+
+    /**
+     * @return true if this is a module-info class with a Module attribute
+     */
+    public boolean isModuleDescriptor()
+    {
+        return null != moduleRequires;
+    }
+
+    /**
+     * @return the names of the modules required by a module descriptor, empty for ordinary classes
+     */
+    public List<String> getModuleRequires()
+    {
+        return null == moduleRequires ? Collections.<String>emptyList() : Collections.unmodifiableList(moduleRequires);
+    }
+
+    /**
+     * @return the names of the modules a module descriptor requires static, i.e. only at compile time
+     */
+    public List<String> getStaticModuleRequires()
+    {
+        return null == staticModuleRequires ? Collections.<String>emptyList() : Collections.unmodifiableList(staticModuleRequires);
+    }
+
+    /**
+     * A declared field or method, or a field or method referenced from the constant pool
+     */
+    public static final class Member
+    {
+        public static final int ACC_PUBLIC = 0x0001;
+
+        public static final int ACC_PROTECTED = 0x0004;
+
+        private final String owner;
+
+        private final int access;
+
+        private final String name;
+
+        private final String descriptor;
+
+        Member(int access, String name, String descriptor)
+        {
+            this(null, access, name, descriptor);
+        }
+
+        Member(String owner, int access, String name, String descriptor)
+        {
+            this.owner = owner;
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * @return the internal name of the referenced class, null for declared members
+         */
+        public String getOwner()
+        {
+            return owner;
+        }
+
+        public int getAccess()
+        {
+            return access;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public String getDescriptor()
+        {
+            return descriptor;
+        }
+
+        /**
+         * @return true for methods, whose descriptors start with a parameter list
+         */
+        public boolean isMethod()
+        {
+            return descriptor.startsWith("(");
+        }
+
+        /**
+         * @return true if code outside the declaring package can use this member
+         */
+        public boolean isAccessible()
+        {
+            return 0 != (access & (ACC_PUBLIC | ACC_PROTECTED));
+        }
+    }
+}
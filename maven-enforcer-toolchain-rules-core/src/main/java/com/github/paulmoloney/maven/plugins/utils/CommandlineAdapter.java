@@ -21,6 +21,8 @@ package com.github.paulmoloney.maven.plugins.utils;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.List;
+import java.util.regex.Pattern;
 
 import org.codehaus.plexus.util.cli.CommandLineException;
 import org.codehaus.plexus.util.cli.CommandLineUtils;
@@ -33,14 +35,51 @@ import org.codehaus.plexus.util.cli.StreamConsumer;
  */
 public class CommandlineAdapter implements ProcessExecutor {
 
+	/**
+	 * Lines the jvm itself prints ahead of the tool output when it is given options, e.g. when JAVA_TOOL_OPTIONS is
+	 * set, unified logging reports a rejected class data sharing archive or a vm option is not accepted
+	 */
+	private static final Pattern JVM_NOTICE = Pattern.compile("Picked up (_JAVA_OPTIONS|JAVA_TOOL_OPTIONS|JDK_JAVA_OPTIONS): .*"
+		+ "|\\[\\d+\\.\\d+s\\]\\[(warning|error|info)\\s*\\].*|.* VM warning: .*");
+
 	private Commandline cmdLine = new Commandline();
 
+	/**
+	 * Whether jvm options are passed, only then are jvm notices skipped so a tool's own bracketed output is kept
+	 */
+	private boolean jvmOptions;
+
+	/**
+	 * Seconds to wait for the tool, 0 waits for ever
+	 */
+	private int timeout;
+
 	public CommandlineAdapter(String executable, String argument) {
         cmdLine.setExecutable(executable);
         cmdLine.createArg().setValue(argument);
 	}
+
+	public CommandlineAdapter(String executable, List<String> arguments) {
+        cmdLine.setExecutable(executable);
+        for (String argument : arguments) {
+            cmdLine.createArg().setValue(argument);
+            jvmOptions |= argument.startsWith("-J-") || argument.startsWith("-XX:");
+        }
+	}
+
+	public CommandlineAdapter(String executable, List<String> arguments, int timeout) {
+        this(executable, arguments);
+        this.timeout = Math.max(0, timeout);
+	}
 	
 	public String runApplication() throws ProcessExecutorException
+	{
+		String[] lines = runApplicationLines();
+		// Java 9 onwards javac reports its version on stdout rather than stderr
+		return lines[1].length() > 0 ? lines[1] : lines[0];
+	}
+
+	public String[] runApplicationLines() throws ProcessExecutorException
 	{
 		String executable = cmdLine.getExecutable();
     	File toolCmd = new File(executable);
@@ -55,10 +94,16 @@ public class CommandlineAdapter implements ProcessExecutor {
         	}
         };
 
+		final StringBuilder firstOutLine = new StringBuilder();
+
         StreamConsumer out = new StreamConsumer() {
-			
+
+        	boolean foundFirstLine = true;
 			public void consumeLine(String line) {
-				//log.info(line);
+				if (foundFirstLine && !(jvmOptions && isJvmNotice(line))) {
+				    firstOutLine.append(line);
+					foundFirstLine = !foundFirstLine;
+				}
 			}
 		};
 
@@ -68,7 +113,7 @@ public class CommandlineAdapter implements ProcessExecutor {
 
         	boolean foundFirstLine = true;
 			public void consumeLine(String line) {
-				if (foundFirstLine) {
+				if (foundFirstLine && !(jvmOptions && isJvmNotice(line))) {
 				    firstLine.append(line);
 					foundFirstLine = !foundFirstLine;
 				}
@@ -77,8 +122,8 @@ public class CommandlineAdapter implements ProcessExecutor {
 		
         try
         {
-        	CommandLineUtils.executeCommandLine(cmdLine, in, out, err);
-            return firstLine.toString();
+        	CommandLineUtils.executeCommandLine(cmdLine, in, out, err, timeout);
+            return new String[] { firstOutLine.toString(), firstLine.toString() };
         }
         catch (CommandLineException e)
         {
@@ -86,6 +131,10 @@ public class CommandlineAdapter implements ProcessExecutor {
         } 
 	}
 	
+	private static boolean isJvmNotice(String line) {
+		return JVM_NOTICE.matcher(line).matches();
+	}
+
 	public String getCommandLine()
 	{
 	    return cmdLine.toString();	
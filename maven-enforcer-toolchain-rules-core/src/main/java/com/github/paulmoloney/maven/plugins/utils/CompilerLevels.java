@@ -0,0 +1,139 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks javac source, target and release levels against the feature release of the jdk that will compile them,
+ * following the levels each javac accepts, so a misconfigured build can fail before javac is started.
+ * @author Paul Moloney
+ *
+ */
+public final class CompilerLevels {
+
+    private CompilerLevels()
+    {
+    }
+
+    /**
+     * @param version a jdk or javac version or level e.g. 1.8.0_392, 1.8.0-392, 17.0.9, 1.6 or 11
+     * @return the feature release e.g. 8, 17, 6 or 11, or 0 if the version can not be parsed
+     */
+    public static int parseFeature(String version)
+    {
+        if (null == version)
+        {
+            return 0;
+        }
+        String[] tokens = version.trim().split("[._+-]");
+        int index = tokens.length > 1 && "1".equals(tokens[0]) ? 1 : 0;
+        try
+        {
+            return Integer.parseInt(tokens[index]);
+        }
+        catch (NumberFormatException e)
+        {
+            return 0;
+        }
+    }
+
+    /**
+     * @param jdkFeature feature release of the compiling jdk
+     * @return the lowest source and target level its javac accepts, 0 where every level is accepted
+     */
+    public static int getMinimumLevel(int jdkFeature)
+    {
+        if (jdkFeature >= 20)
+        {
+            return 8;
+        }
+        if (jdkFeature >= 12)
+        {
+            return 7;
+        }
+        if (jdkFeature >= 9)
+        {
+            return 6;
+        }
+        return 0;
+    }
+
+    /**
+     * @param jdkVersion the version of the compiling jdk
+     * @param source the -source level or null
+     * @param target the -target level or null
+     * @param release the --release level or null
+     * @return a message per level the jdk can not compile for, empty if all are supported
+     */
+    public static List<String> check(String jdkVersion, String source, String target, String release)
+    {
+        List<String> problems = new ArrayList<String>();
+        int jdk = parseFeature(jdkVersion);
+        if (0 == jdk)
+        {
+            return problems;
+        }
+        if (null != release)
+        {
+            int level = parseFeature(release);
+            if (jdk < 9)
+            {
+                problems.add("release " + release + " requires a jdk 9 or later toolchain but the toolchain jdk is " + jdkVersion);
+            }
+            else
+            {
+                checkLevel("release", release, level, jdk, jdkVersion, problems);
+            }
+            return problems;
+        }
+        if (null != source)
+        {
+            checkLevel("source", source, parseFeature(source), jdk, jdkVersion, problems);
+        }
+        if (null != target)
+        {
+            checkLevel("target", target, parseFeature(target), jdk, jdkVersion, problems);
+        }
+        if (null != source && null != target && parseFeature(target) < parseFeature(source))
+        {
+            problems.add("target " + target + " is lower than source " + source);
+        }
+        return problems;
+    }
+
+    private static void checkLevel(String name, String value, int level, int jdk, String jdkVersion, List<String> problems)
+    {
+        if (0 == level)
+        {
+            problems.add(name + " " + value + " is not a java level");
+        }
+        else if (level > jdk)
+        {
+            problems.add(name + " " + value + " requires a jdk " + level + " or later toolchain but the toolchain jdk is " + jdkVersion);
+        }
+        else if (level < getMinimumLevel(jdk))
+        {
+            problems.add(name + " " + value + " is no longer supported by the toolchain jdk " + jdkVersion
+                + ", which compiles for " + getMinimumLevel(jdk) + " and later");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Determines the version of a compiler from the files it is installed from, without running it.
+ * @author Paul Moloney
+ *
+ */
+public interface CompilerVersionDetector {
+    /**
+     * @param executable the located compiler executable, may be null
+     * @param compilerLoader the class loader of the plexus compiler component, may be null
+     * @return the file the version is read from or null if there is none, it is also the file to fingerprint
+     */
+    File locate(File executable, ClassLoader compilerLoader);
+
+    /**
+     * @param source the file returned by {@link #locate(File, ClassLoader)}
+     * @return the version or null if the file does not record one
+     * @throws IOException if the file can not be read
+     */
+    String detectVersion(File source) throws IOException;
+}
@@ -0,0 +1,55 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The version detectors of the plexus compiler ids whose version can be read without running the compiler.
+ * @author Paul Moloney
+ *
+ */
+public final class CompilerVersionDetectors {
+
+    private static final Map<String, CompilerVersionDetector> DETECTORS = new HashMap<String, CompilerVersionDetector>();
+
+    static
+    {
+        DETECTORS.put("javac", new JdkReleaseVersionDetector());
+        DETECTORS.put("eclipse", new JarVersionDetector("org/eclipse/jdt/internal/compiler/batch/Main.class",
+            "META-INF/maven/org.eclipse.jdt/ecj/pom.properties"));
+        DETECTORS.put("aspectj", new JarVersionDetector("org/aspectj/tools/ajc/Main.class",
+            "META-INF/maven/org.aspectj/aspectjtools/pom.properties"));
+    }
+
+    private CompilerVersionDetectors()
+    {
+    }
+
+    /**
+     * @param compilerId a plexus compiler id e.g. javac
+     * @return the detector or null if the compiler has to be run to learn its version
+     */
+    public static CompilerVersionDetector forCompilerId(String compilerId)
+    {
+        return DETECTORS.get(compilerId);
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Works out the levels a jdk 9+ javac accepts for --release from the entry names of its lib/ct.sym, whose top level
+ * directories are named after the releases sharing their content, one base 36 character per release
+ * e.g. 89ABC holds data common to releases 8 to 12. Only the zip central directory is read.
+ * @author Paul Moloney
+ *
+ */
+public final class CtSymReleases {
+
+    /**
+     * Releases per ct.sym fingerprint, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<FileFingerprint, Set<Integer>> RELEASES = new ConcurrentHashMap<FileFingerprint, Set<Integer>>();
+
+    private static final String MODULES_SUFFIX = "-modules";
+
+    private CtSymReleases()
+    {
+    }
+
+    /**
+     * @param jdkHome
+     * @return the --release levels of the jdk, including its own feature release on jdk 9+, empty for older jdks
+     * @throws IOException if lib/ct.sym can not be read
+     */
+    public static Set<Integer> getReleases(File jdkHome) throws IOException
+    {
+        Set<Integer> releases = new TreeSet<Integer>();
+        File ctSym = new File(jdkHome, "lib" + File.separator + "ct.sym");
+        FileFingerprint fingerprint = FileFingerprint.of(ctSym);
+        if (null != fingerprint)
+        {
+            Set<Integer> cached = RELEASES.get(fingerprint);
+            if (null == cached)
+            {
+                cached = Collections.unmodifiableSet(parse(ZipDirectory.open(ctSym).getNames()));
+                RELEASES.put(fingerprint, cached);
+            }
+            releases.addAll(cached);
+        }
+        JdkReleaseFile release = JdkReleaseFile.read(JdkReleaseFile.locate(jdkHome));
+        if (null != release && release.getFeatureVersion() >= 9)
+        {
+            // the current release is compiled against the runtime image rather than ct.sym
+            releases.add(Integer.valueOf(release.getFeatureVersion()));
+        }
+        return releases;
+    }
+
+    /**
+     * @param names ct.sym entry names
+     * @return the releases named by the top level directories
+     */
+    static Set<Integer> parse(Collection<String> names)
+    {
+        Set<Integer> releases = new TreeSet<Integer>();
+        Set<String> seen = new TreeSet<String>();
+        for (String name : names)
+        {
+            int separator = name.indexOf('/');
+            if (separator <= 0)
+            {
+                continue;
+            }
+            String directory = name.substring(0, separator);
+            if (directory.endsWith(MODULES_SUFFIX))
+            {
+                directory = directory.substring(0, directory.length() - MODULES_SUFFIX.length());
+            }
+            if (!seen.add(directory) || !directory.matches("[0-9A-Z]+"))
+            {
+                continue;
+            }
+            for (int i = 0; i < directory.length(); i++)
+            {
+                releases.add(Integer.valueOf(Character.digit(directory.charAt(i), 36)));
+            }
+        }
+        return releases;
+    }
+}
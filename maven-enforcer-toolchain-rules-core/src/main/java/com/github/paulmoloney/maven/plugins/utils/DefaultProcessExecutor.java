@@ -0,0 +1,44 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.List;
+
+/**
+ * @author Paul Moloney
+ *
+ */
+public class DefaultProcessExecutor {
+	
+    public ProcessExecutor createExecutor(String executable, String argument) {
+    	return new CommandlineAdapter(executable, argument);
+    }
+
+    public ProcessExecutor createExecutor(String executable, List<String> arguments) {
+    	return new CommandlineAdapter(executable, arguments);
+    }
+
+    /**
+     * @param timeout seconds to wait for the process before it is killed, 0 waits for ever
+     */
+    public ProcessExecutor createExecutor(String executable, List<String> arguments, int timeout) {
+    	return new CommandlineAdapter(executable, arguments, timeout);
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The class, byte order and machine of an ELF executable or library, read with a single positioned read of its first
+ * 64 bytes, so the architecture of a tool can be checked without running it.
+ * @author Paul Moloney
+ *
+ */
+public final class ElfHeader {
+
+    public static final int CLASS_32 = 1;
+
+    public static final int CLASS_64 = 2;
+
+    public static final int LITTLE_ENDIAN = 1;
+
+    public static final int BIG_ENDIAN = 2;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC = 0x7F454C46;
+
+    private static final int EI_CLASS = 4;
+
+    private static final int EI_DATA = 5;
+
+    private static final int E_MACHINE = 18;
+
+    private static final Map<String, ElfHeader> HOSTS = new HashMap<String, ElfHeader>();
+
+    /**
+     * Architecture names by machine and byte order
+     */
+    private static final Map<String, String> MACHINES = new HashMap<String, String>();
+
+    static
+    {
+        host(CLASS_32, LITTLE_ENDIAN, 3, "x86", "i386", "i486", "i586", "i686");
+        host(CLASS_64, LITTLE_ENDIAN, 62, "amd64", "x86_64");
+        host(CLASS_32, LITTLE_ENDIAN, 40, "arm", "armv7l");
+        host(CLASS_64, LITTLE_ENDIAN, 183, "aarch64", "arm64");
+        host(CLASS_64, BIG_ENDIAN, 21, "ppc64");
+        host(CLASS_64, LITTLE_ENDIAN, 21, "ppc64le");
+        host(CLASS_64, BIG_ENDIAN, 22, "s390x");
+        host(CLASS_64, LITTLE_ENDIAN, 243, "riscv64");
+    }
+
+    private final int elfClass;
+
+    private final int data;
+
+    private final int machine;
+
+    private ElfHeader(int elfClass, int data, int machine)
+    {
+        this.elfClass = elfClass;
+        this.data = data;
+        this.machine = machine;
+    }
+
+    private static void host(int elfClass, int data, int machine, String... archs)
+    {
+        ElfHeader header = new ElfHeader(elfClass, data, machine);
+        for (String arch : archs)
+        {
+            HOSTS.put(arch, header);
+        }
+        MACHINES.put(machine + "/" + data, archs[0]);
+    }
+
+    /**
+     * @param file an executable or shared library
+     * @return the header or null if the file is not an ELF file, e.g. a script or a windows or mac executable
+     * @throws IOException if the file can not be read
+     */
+    public static ElfHeader read(File file) throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = in.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0)
+            {
+                // positioned reads until the header is full or the file ends
+            }
+            if (header.position() < E_MACHINE + 2 || MAGIC != header.getInt(0))
+            {
+                return null;
+            }
+            int elfClass = header.get(EI_CLASS);
+            int data = header.get(EI_DATA);
+            header.order(BIG_ENDIAN == data ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            return new ElfHeader(elfClass, data, header.getShort(E_MACHINE) & 0xFFFF);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * @param arch the os.arch of a jvm
+     * @return the class, byte order and machine executables of that architecture have or null if the architecture
+     * is not known
+     */
+    public static ElfHeader forArch(String arch)
+    {
+        return null == arch ? null : HOSTS.get(arch.toLowerCase(Locale.ENGLISH));
+    }
+
+    public int getElfClass()
+    {
+        return elfClass;
+    }
+
+    /**
+     * @return {@link #LITTLE_ENDIAN} or {@link #BIG_ENDIAN}
+     */
+    public int getData()
+    {
+        return data;
+    }
+
+    public int getMachine()
+    {
+        return machine;
+    }
+
+    /**
+     * @return true if both headers have the same class, byte order and machine
+     */
+    public boolean isCompatible(ElfHeader other)
+    {
+        return null != other && elfClass == other.elfClass && data == other.data && machine == other.machine;
+    }
+
+    /**
+     * @return e.g. 64-bit aarch64 or 64-bit ppc64le
+     */
+    public String toString()
+    {
+        String name = MACHINES.get(machine + "/" + data);
+        return (CLASS_64 == elfClass ? "64-bit " : CLASS_32 == elfClass ? "32-bit " : "class " + elfClass + " ")
+            + (null == name ? "machine " + machine + (BIG_ENDIAN == data ? " big-endian" : " little-endian") : name);
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Identifies a file by its canonical path, size and modification time, cheap enough to compute on every build
+ * and used to key cached results about a tool or jdk file.
+ * @author Paul Moloney
+ *
+ */
+public final class FileFingerprint {
+
+    private final String path;
+
+    private final long length;
+
+    private final long lastModified;
+
+    private FileFingerprint(String path, long length, long lastModified)
+    {
+        this.path = path;
+        this.length = length;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * @param file
+     * @return the fingerprint of the file or null if it is not an existing file
+     */
+    public static FileFingerprint of(File file)
+    {
+        if (null == file || !file.isFile())
+        {
+            return null;
+        }
+        String path;
+        try
+        {
+            path = file.getCanonicalPath();
+        }
+        catch (IOException e)
+        {
+            path = file.getAbsolutePath();
+        }
+        return new FileFingerprint(path, file.length(), file.lastModified());
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public long getLength()
+    {
+        return length;
+    }
+
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    /**
+     * @return a hex digest of this fingerprint, suitable for naming cache files
+     */
+    public String toDigest()
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest)
+            {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof FileFingerprint))
+        {
+            return false;
+        }
+        FileFingerprint other = (FileFingerprint) obj;
+        return length == other.length && lastModified == other.lastModified && path.equals(other.path);
+    }
+
+    public int hashCode()
+    {
+        int result = path.hashCode();
+        result = 31 * result + (int) (length ^ (length >>> 32));
+        return 31 * result + (int) (lastModified ^ (lastModified >>> 32));
+    }
+
+    public String toString()
+    {
+        return path + '@' + length + ':' + lastModified;
+    }
+}
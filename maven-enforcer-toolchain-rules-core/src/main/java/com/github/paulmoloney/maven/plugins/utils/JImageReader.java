@@ -0,0 +1,302 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the index of a jdk 9+ runtime image (lib/modules) through a memory mapping without starting the jdk.
+ * The layout is a header, the redirect and offset tables, the location attribute streams and the string table.
+ * @author Paul Moloney
+ *
+ */
+public final class JImageReader {
+
+    public static final int MAGIC = 0xCAFEDADA;
+
+    private static final int HEADER_SIZE = 7 * 4;
+
+    private static final int ATTRIBUTE_END = 0;
+    private static final int ATTRIBUTE_MODULE = 1;
+    private static final int ATTRIBUTE_PARENT = 2;
+    private static final int ATTRIBUTE_BASE = 3;
+    private static final int ATTRIBUTE_EXTENSION = 4;
+    private static final int ATTRIBUTE_OFFSET = 5;
+    private static final int ATTRIBUTE_COMPRESSED = 6;
+    private static final int ATTRIBUTE_UNCOMPRESSED = 7;
+    private static final int ATTRIBUTE_COUNT = 8;
+
+    private final File image;
+
+    private final int majorVersion;
+
+    private final int minorVersion;
+
+    private final int resourceCount;
+
+    private final int tableLength;
+
+    private final int locationsStart;
+
+    private final int stringsStart;
+
+    private final int indexSize;
+
+    private final ByteBuffer index;
+
+    private JImageReader(File image, ByteBuffer index, int majorVersion, int minorVersion, int resourceCount,
+                         int tableLength, int locationsSize, int stringsSize)
+    {
+        this.image = image;
+        this.index = index;
+        this.majorVersion = majorVersion;
+        this.minorVersion = minorVersion;
+        this.resourceCount = resourceCount;
+        this.tableLength = tableLength;
+        this.locationsStart = HEADER_SIZE + tableLength * 4 * 2;
+        this.stringsStart = locationsStart + locationsSize;
+        this.indexSize = stringsStart + stringsSize;
+    }
+
+    /**
+     * Maps the index of the image, the mapping stays valid after the file is closed
+     * @param image the lib/modules file of a jdk
+     * @return a reader over the image index
+     * @throws IOException if the file is not a runtime image
+     */
+    public static JImageReader open(File image) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(image, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            if (channel.size() < HEADER_SIZE)
+            {
+                throw new IOException(image + " is not a jimage file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            // the image is written in the byte order of the platform that built it
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (MAGIC != header.getInt(0))
+            {
+                header.order(ByteOrder.BIG_ENDIAN);
+                if (MAGIC != header.getInt(0))
+                {
+                    throw new IOException(image + " is not a jimage file");
+                }
+            }
+            int version = header.getInt(4);
+            int resourceCount = header.getInt(12);
+            int tableLength = header.getInt(16);
+            int locationsSize = header.getInt(20);
+            int stringsSize = header.getInt(24);
+            long indexSize = HEADER_SIZE + (long) tableLength * 4 * 2 + locationsSize + stringsSize;
+            if (tableLength < 0 || locationsSize < 0 || stringsSize < 0 || indexSize > channel.size())
+            {
+                throw new IOException(image + " has a corrupt jimage header");
+            }
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, indexSize);
+            index.order(header.order());
+            return new JImageReader(image, index, version >>> 16, version & 0xFFFF, resourceCount, tableLength,
+                locationsSize, stringsSize);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    /**
+     * @return the names of the modules in the image, i.e. those with a /module/module-info.class resource
+     * @throws IOException if the index is corrupt
+     */
+    public Set<String> getModuleNames() throws IOException
+    {
+        Set<String> modules = new TreeSet<String>();
+        long[] attributes = new long[ATTRIBUTE_COUNT];
+        for (int i = 0; i < tableLength; i++)
+        {
+            readLocation(index.getInt(HEADER_SIZE + tableLength * 4 + i * 4), attributes);
+            if ("module-info".equals(getString(attributes[ATTRIBUTE_BASE]))
+                && "class".equals(getString(attributes[ATTRIBUTE_EXTENSION]))
+                && "".equals(getString(attributes[ATTRIBUTE_PARENT])))
+            {
+                String module = getString(attributes[ATTRIBUTE_MODULE]);
+                if (!"".equals(module))
+                {
+                    modules.add(module);
+                }
+            }
+        }
+        return modules;
+    }
+
+    /**
+     * Passes every resource with the given extension to the visitor, the resource area of the image is mapped
+     * for the duration of the call
+     * @param extension e.g. class
+     * @param visitor
+     * @throws IOException if the image is corrupt or holds compressed resources
+     */
+    public void visitResources(String extension, ResourceVisitor visitor) throws IOException
+    {
+        ByteBuffer resources;
+        RandomAccessFile file = new RandomAccessFile(image, "r");
+        try
+        {
+            FileChannel channel = file.getChannel();
+            if (channel.size() - indexSize > Integer.MAX_VALUE)
+            {
+                throw new IOException(image + " is too large to map");
+            }
+            resources = channel.map(FileChannel.MapMode.READ_ONLY, indexSize, channel.size() - indexSize);
+        }
+        finally
+        {
+            file.close();
+        }
+        long[] attributes = new long[ATTRIBUTE_COUNT];
+        for (int i = 0; i < tableLength; i++)
+        {
+            readLocation(index.getInt(HEADER_SIZE + tableLength * 4 + i * 4), attributes);
+            if (!extension.equals(getString(attributes[ATTRIBUTE_EXTENSION])))
+            {
+                continue;
+            }
+            String module = getString(attributes[ATTRIBUTE_MODULE]);
+            if ("".equals(module))
+            {
+                continue;
+            }
+            if (0 != attributes[ATTRIBUTE_COMPRESSED])
+            {
+                throw new IOException(image + " holds compressed resources which are not supported");
+            }
+            String parent = getString(attributes[ATTRIBUTE_PARENT]);
+            String path = ("".equals(parent) ? "" : parent + '/') + getString(attributes[ATTRIBUTE_BASE]) + '.' + extension;
+            long offset = attributes[ATTRIBUTE_OFFSET];
+            long size = attributes[ATTRIBUTE_UNCOMPRESSED];
+            if (offset + size > resources.capacity())
+            {
+                throw new IOException("Resource " + path + " lies outside " + image);
+            }
+            ByteBuffer content = resources.duplicate();
+            content.limit((int) (offset + size));
+            content.position((int) offset);
+            visitor.visit(module, path, content.slice());
+        }
+    }
+
+    /**
+     * Receives the resources of an image
+     */
+    public interface ResourceVisitor
+    {
+        /**
+         * @param module the module holding the resource e.g. java.base
+         * @param path the resource path within the module e.g. java/lang/Object.class
+         * @param content a read only view of the uncompressed resource
+         * @throws IOException to abandon the visit
+         */
+        void visit(String module, String path, ByteBuffer content) throws IOException;
+    }
+
+    /**
+     * Decodes a location, each attribute is a byte holding the kind in the upper 5 bits and the value length - 1
+     * in the lower 3 bits, followed by the big endian value
+     */
+    private void readLocation(int offset, long[] attributes) throws IOException
+    {
+        for (int i = 0; i < attributes.length; i++)
+        {
+            attributes[i] = 0;
+        }
+        int position = locationsStart + offset;
+        while (position < stringsStart)
+        {
+            int data = index.get(position) & 0xFF;
+            int kind = data >>> 3;
+            if (ATTRIBUTE_END == kind)
+            {
+                return;
+            }
+            if (kind >= ATTRIBUTE_COUNT)
+            {
+                throw new IOException("Invalid location attribute " + kind + " in " + image);
+            }
+            int length = (data & 0x7) + 1;
+            long value = 0;
+            for (int j = 1; j <= length; j++)
+            {
+                value = (value << 8) | (index.get(position + j) & 0xFF);
+            }
+            attributes[kind] = value;
+            position += length + 1;
+        }
+        throw new IOException("Unterminated location at " + offset + " in " + image);
+    }
+
+    private String getString(long offset) throws IOException
+    {
+        int position = stringsStart + (int) offset;
+        if (position >= indexSize)
+        {
+            throw new IOException("Invalid string offset " + offset + " in " + image);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        for (byte b = index.get(position); 0 != b; b = index.get(++position))
+        {
+            bytes.write(b);
+        }
+        try
+        {
+            return bytes.toString("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    public int getMajorVersion()
+    {
+        return majorVersion;
+    }
+
+    public int getMinorVersion()
+    {
+        return minorVersion;
+    }
+
+    public int getResourceCount()
+    {
+        return resourceCount;
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+
+/**
+ * Reads the version of a jar based compiler, such as ecj or ajc, from the maven pom.properties or the manifest
+ * of its jar. The jar is either the located executable or the jar the compiler component loads its main class from.
+ * @author Paul Moloney
+ *
+ */
+public final class JarVersionDetector implements CompilerVersionDetector {
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private static final String[] VERSION_ATTRIBUTES = { "Bundle-Version", "Implementation-Version", "Specification-Version" };
+
+    private final String mainClassResource;
+
+    private final String pomProperties;
+
+    /**
+     * @param mainClassResource e.g. org/eclipse/jdt/internal/compiler/batch/Main.class
+     * @param pomProperties e.g. META-INF/maven/org.aspectj/aspectjtools/pom.properties, may be null
+     */
+    public JarVersionDetector(String mainClassResource, String pomProperties)
+    {
+        this.mainClassResource = mainClassResource;
+        this.pomProperties = pomProperties;
+    }
+
+    public File locate(File executable, ClassLoader compilerLoader)
+    {
+        if (null != executable && executable.getName().endsWith(".jar") && executable.isFile())
+        {
+            return executable;
+        }
+        if (null == compilerLoader)
+        {
+            return null;
+        }
+        URL resource = compilerLoader.getResource(mainClassResource);
+        if (null == resource || !"jar".equals(resource.getProtocol()))
+        {
+            return null;
+        }
+        String path = resource.getPath();
+        int separator = path.indexOf("!/");
+        if (!path.startsWith("file:") || separator < 0)
+        {
+            return null;
+        }
+        try
+        {
+            return new File(URLDecoder.decode(path.substring("file:".length(), separator), "UTF-8"));
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    public String detectVersion(File source) throws IOException
+    {
+        ZipDirectory jar = ZipDirectory.open(source);
+        if (null != pomProperties && jar.contains(pomProperties))
+        {
+            Properties properties = new Properties();
+            properties.load(new ByteArrayInputStream(jar.read(pomProperties)));
+            String version = properties.getProperty("version");
+            if (null != version && !"".equals(version.trim()))
+            {
+                return version.trim();
+            }
+        }
+        if (jar.contains(MANIFEST))
+        {
+            Attributes attributes = new Manifest(new ByteArrayInputStream(jar.read(MANIFEST))).getMainAttributes();
+            for (String name : VERSION_ATTRIBUTES)
+            {
+                String version = attributes.getValue(name);
+                if (null != version && !"".equals(version.trim()))
+                {
+                    return version.trim();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * The release file at the root of a jdk 7+ image, holding KEY="value" lines such as JAVA_VERSION and IMPLEMENTOR.
+ * @author Paul Moloney
+ *
+ */
+public final class JdkReleaseFile {
+
+    public static final String JAVA_VERSION = "JAVA_VERSION";
+
+    public static final String JAVA_RUNTIME_VERSION = "JAVA_RUNTIME_VERSION";
+
+    public static final String IMPLEMENTOR = "IMPLEMENTOR";
+
+    public static final String IMPLEMENTOR_VERSION = "IMPLEMENTOR_VERSION";
+
+    public static final String JVM_VARIANT = "JVM_VARIANT";
+
+    /**
+     * Parsed release files per fingerprint, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<FileFingerprint, JdkReleaseFile> RELEASES = new ConcurrentHashMap<FileFingerprint, JdkReleaseFile>();
+
+    private final File file;
+
+    private final Properties properties;
+
+    private JdkReleaseFile(File file, Properties properties)
+    {
+        this.file = file;
+        this.properties = properties;
+    }
+
+    /**
+     * @param jdkHome
+     * @return the location of the release file of the jdk, which may not exist
+     */
+    public static File locate(File jdkHome)
+    {
+        return new File(jdkHome, "release");
+    }
+
+    /**
+     * @param jdkHome
+     * @return the release file of the jdk, parsed once per build for an unchanged file, or null if there is none
+     * @throws IOException if the file can not be read
+     */
+    public static JdkReleaseFile forJdk(File jdkHome) throws IOException
+    {
+        File file = locate(jdkHome);
+        FileFingerprint fingerprint = FileFingerprint.of(file);
+        if (null == fingerprint)
+        {
+            return null;
+        }
+        JdkReleaseFile release = RELEASES.get(fingerprint);
+        if (null == release)
+        {
+            release = read(file);
+            if (null != release)
+            {
+                RELEASES.put(fingerprint, release);
+            }
+        }
+        return release;
+    }
+
+    /**
+     * @param file a jdk release file
+     * @return the parsed file or null if there is no such file
+     * @throws IOException if the file can not be read
+     */
+    public static JdkReleaseFile read(File file) throws IOException
+    {
+        if (!file.isFile())
+        {
+            return null;
+        }
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            properties.load(in);
+        }
+        finally
+        {
+            IOUtil.close(in);
+        }
+        return new JdkReleaseFile(file, properties);
+    }
+
+    /**
+     * @param key e.g. JAVA_VERSION
+     * @return the unquoted value or null if the key is not present
+     */
+    public String get(String key)
+    {
+        String value = properties.getProperty(key);
+        if (null == value)
+        {
+            return null;
+        }
+        value = value.trim();
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\""))
+        {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    public String getJavaVersion()
+    {
+        return get(JAVA_VERSION);
+    }
+
+    /**
+     * @return the vendor e.g. Eclipse Adoptium, or null for jdks before 9 and builds that do not record it
+     */
+    public String getImplementor()
+    {
+        return get(IMPLEMENTOR);
+    }
+
+    /**
+     * @return the jvm e.g. Hotspot or OpenJ9, or null if not recorded
+     */
+    public String getJvmVariant()
+    {
+        return get(JVM_VARIANT);
+    }
+
+    /**
+     * @return the feature release of JAVA_VERSION e.g. 8 for 1.8.0_392 and 17 for 17.0.9, or 0 if unknown
+     */
+    public int getFeatureVersion()
+    {
+        return CompilerLevels.parseFeature(getJavaVersion());
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+}
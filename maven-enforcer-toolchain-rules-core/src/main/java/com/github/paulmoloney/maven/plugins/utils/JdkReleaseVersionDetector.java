@@ -0,0 +1,60 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads the version of javac from the JAVA_VERSION of the release file of the jdk it lives in.
+ * @author Paul Moloney
+ *
+ */
+public final class JdkReleaseVersionDetector implements CompilerVersionDetector {
+
+    public File locate(File executable, ClassLoader compilerLoader)
+    {
+        if (null == executable)
+        {
+            return null;
+        }
+        File binDir;
+        try
+        {
+            binDir = executable.getCanonicalFile().getParentFile();
+        }
+        catch (IOException e)
+        {
+            binDir = executable.getAbsoluteFile().getParentFile();
+        }
+        if (null == binDir || !"bin".equals(binDir.getName()) || null == binDir.getParentFile())
+        {
+            return null;
+        }
+        File release = JdkReleaseFile.locate(binDir.getParentFile());
+        return release.isFile() ? release : null;
+    }
+
+    public String detectVersion(File source) throws IOException
+    {
+        JdkReleaseFile release = JdkReleaseFile.read(source);
+        return null == release ? null : release.getJavaVersion();
+    }
+}
@@ -0,0 +1,173 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Launcher options that cut the startup cost of running a jdk tool such as jar --version, where nearly all the
+ * time goes on starting the jvm. Each option is passed with -J so the tool launcher hands it to its jvm, or as is
+ * to the java launcher. On jdk 13+ the classes loaded by the tool are also dumped once into a dynamic class data
+ * sharing archive kept in a cache directory and mapped by later runs. The archive is kept per jdk and tool, as a
+ * jvm refuses to map an archive dumped by a launcher with another main module or class path.
+ * @author Paul Moloney
+ *
+ */
+public final class ProbeJvmProfile {
+
+    private static final String[] STARTUP_OPTIONS = {
+        // older jdks skip the options they do not know instead of refusing to start
+        "-XX:+IgnoreUnrecognizedVMOptions",
+        "-XX:TieredStopAtLevel=1",
+        "-XX:+UseSerialGC",
+        "-Xms8m",
+        "-Xmx64m",
+        "-Xss512k",
+        "-Xshare:auto"
+    };
+
+    private static final int DYNAMIC_ARCHIVE_RELEASE = 13;
+
+    private final File archive;
+
+    private File dumpFile;
+
+    /**
+     * @param jdkHome the jdk of the tool, may be null
+     * @param tool the name of the tool run, e.g. jar or java
+     * @param cacheDirectory the directory to keep class data sharing archives in, may be null to not use them
+     */
+    public ProbeJvmProfile(File jdkHome, String tool, File cacheDirectory)
+    {
+        File archive = null;
+        if (null != jdkHome && null != tool && null != cacheDirectory)
+        {
+            try
+            {
+                JdkReleaseFile release = JdkReleaseFile.forJdk(jdkHome);
+                FileFingerprint modules = FileFingerprint.of(new File(jdkHome, "lib" + File.separator + "modules"));
+                if (null != release && release.getFeatureVersion() >= DYNAMIC_ARCHIVE_RELEASE && null != modules)
+                {
+                    archive = new File(cacheDirectory, "cds" + File.separator + modules.toDigest() + "-" + new File(tool).getName() + ".jsa");
+                }
+            }
+            catch (IOException e)
+            {
+                archive = null;
+            }
+        }
+        this.archive = archive;
+    }
+
+    /**
+     * @param arguments the tool arguments e.g. --version
+     * @return the -J startup options followed by the tool arguments, without the archive options if the archive
+     * directory can not be created
+     */
+    public List<String> getArguments(List<String> arguments)
+    {
+        return getArguments("-J", arguments);
+    }
+
+    /**
+     * @param arguments the java launcher arguments e.g. -version
+     * @return the startup options followed by the arguments, for the java launcher itself
+     */
+    public List<String> getJvmArguments(List<String> arguments)
+    {
+        return getArguments("", arguments);
+    }
+
+    private List<String> getArguments(String prefix, List<String> arguments)
+    {
+        List<String> result = new ArrayList<String>();
+        for (String option : STARTUP_OPTIONS)
+        {
+            result.add(prefix + option);
+        }
+        if (null != archive)
+        {
+            if (archive.isFile())
+            {
+                result.add(prefix + "-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            }
+            else
+            {
+                File dump = createDumpFile();
+                if (null != dump)
+                {
+                    dumpFile = dump;
+                    result.add(prefix + "-XX:ArchiveClassesAtExit=" + dumpFile.getAbsolutePath());
+                }
+            }
+        }
+        result.addAll(arguments);
+        return result;
+    }
+
+    /**
+     * @return a file of its own to dump the archive to, so concurrent builds never map a half written archive, or
+     * null if the archive directory can not be written
+     */
+    private File createDumpFile()
+    {
+        File directory = archive.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            return null;
+        }
+        try
+        {
+            File dump = File.createTempFile(archive.getName(), ".tmp", directory);
+            dump.delete();
+            return dump;
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Publishes the archive dumped by the run, if any
+     */
+    public void completed()
+    {
+        if (null != dumpFile)
+        {
+            if (dumpFile.isFile() && !dumpFile.renameTo(archive))
+            {
+                dumpFile.delete();
+            }
+            dumpFile = null;
+        }
+    }
+
+    /**
+     * @return the archive for this jdk and tool or null if it does not support dynamic archives
+     */
+    public File getArchive()
+    {
+        return archive;
+    }
+}
@@ -24,6 +24,13 @@ package com.github.paulmoloney.maven.plugins.utils;
  *
  */
 public interface ProcessExecutor {
+    /**
+     * @return the first line the tool printed on stderr or, if none, on stdout
+     */
     String runApplication() throws ProcessExecutorException;
+    /**
+     * @return the first line the tool printed on stdout and the first on stderr, each empty if it printed none
+     */
+    String[] runApplicationLines() throws ProcessExecutorException;
     String getCommandLine();
 }
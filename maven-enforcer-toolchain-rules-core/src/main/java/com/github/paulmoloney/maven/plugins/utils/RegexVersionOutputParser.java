@@ -0,0 +1,62 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the first match of a regular expression, its first group when it has groups. The pattern is compiled
+ * once and may be shared between threads.
+ * @author Paul Moloney
+ *
+ */
+public final class RegexVersionOutputParser implements VersionOutputParser {
+
+    private final Pattern pattern;
+
+    /**
+     * @param regex e.g. libprotoc (\S+)
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public RegexVersionOutputParser(String regex)
+    {
+        this.pattern = Pattern.compile(regex);
+    }
+
+    public String parse(String output)
+    {
+        if (null == output)
+        {
+            return null;
+        }
+        Matcher matcher = pattern.matcher(output);
+        if (!matcher.find())
+        {
+            return null;
+        }
+        return matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+    }
+
+    public String toString()
+    {
+        return pattern.pattern();
+    }
+}
@@ -0,0 +1,442 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * A sorted, memory mapped index of the classes, accessible fields and methods and supertypes of a jdk.
+ * The file holds a header, a table of entry offsets and the UTF-8 entries in unsigned byte order so that
+ * lookups are binary searches over the mapping. Entries are
+ * <ul>
+ * <li><code>!package</code> for every package</li>
+ * <li><code>owner#</code> for every class</li>
+ * <li><code>owner#&gt;supertype</code> for the super class and each interface</li>
+ * <li><code>owner#name:descriptor</code> for fields and <code>owner#name(descriptor</code> for methods</li>
+ * </ul>
+ * @author Paul Moloney
+ *
+ */
+public final class SignatureIndex {
+
+    private static final int MAGIC = 0x54534958;
+
+    private static final int FORMAT = 1;
+
+    private static final int HEADER_SIZE = 3 * 4;
+
+    private static final Comparator<byte[]> UNSIGNED_ORDER = new Comparator<byte[]>() {
+        public int compare(byte[] left, byte[] right)
+        {
+            int length = Math.min(left.length, right.length);
+            for (int i = 0; i < length; i++)
+            {
+                int difference = (left[i] & 0xFF) - (right[i] & 0xFF);
+                if (0 != difference)
+                {
+                    return difference;
+                }
+            }
+            return left.length - right.length;
+        }
+    };
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final int dataStart;
+
+    private SignatureIndex(ByteBuffer buffer, int count)
+    {
+        this.buffer = buffer;
+        this.count = count;
+        this.dataStart = HEADER_SIZE + (count + 1) * 4;
+    }
+
+    /**
+     * @param file an index written by {@link #write(Collection, File)}
+     * @return the mapped index
+     * @throws IOException if the file is not an index of the current format
+     */
+    public static SignatureIndex open(File file) throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try
+        {
+            FileChannel channel = in.getChannel();
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException(file + " is not a signature index");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (MAGIC != buffer.getInt(0) || FORMAT != buffer.getInt(4))
+            {
+                throw new IOException(file + " is not a signature index of format " + FORMAT);
+            }
+            int count = buffer.getInt(8);
+            if (count < 0 || HEADER_SIZE + (count + 1L) * 4 > channel.size())
+            {
+                throw new IOException(file + " is a corrupt signature index");
+            }
+            return new SignatureIndex(buffer, count);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Indexes the classes of a jdk, from its lib/modules image on jdk 9+ or the jars of its jre/lib directory
+     * @param jdkHome
+     * @param indexFile the file to write, written to a temporary file first and then renamed
+     * @return the mapped index
+     * @throws IOException if the jdk classes can not be read
+     */
+    public static SignatureIndex build(File jdkHome, File indexFile) throws IOException
+    {
+        final Set<String> entries = new HashSet<String>();
+        File image = new File(jdkHome, "lib" + File.separator + "modules");
+        if (image.isFile())
+        {
+            JImageReader.open(image).visitResources("class", new JImageReader.ResourceVisitor() {
+                public void visit(String module, String path, ByteBuffer content) throws IOException
+                {
+                    if (!path.endsWith("module-info.class"))
+                    {
+                        byte[] bytes = new byte[content.remaining()];
+                        content.get(bytes);
+                        addEntries(ClassFile.parse(bytes), entries);
+                    }
+                }
+            });
+        }
+        else
+        {
+            File libDir = new File(jdkHome, "jre" + File.separator + "lib");
+            if (!libDir.isDirectory())
+            {
+                libDir = new File(jdkHome, "lib");
+            }
+            File[] jars = libDir.listFiles();
+            if (null != jars)
+            {
+                for (File jar : jars)
+                {
+                    if (jar.getName().endsWith(".jar"))
+                    {
+                        addJarEntries(jar, entries);
+                    }
+                }
+            }
+        }
+        if (entries.isEmpty())
+        {
+            throw new IOException("No classes found in the jdk at " + jdkHome);
+        }
+        write(entries, indexFile);
+        return open(indexFile);
+    }
+
+    private static void addJarEntries(File jar, Set<String> entries) throws IOException
+    {
+        ZipFile zip = new ZipFile(jar);
+        try
+        {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();)
+            {
+                ZipEntry entry = e.nextElement();
+                String name = entry.getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class"))
+                {
+                    InputStream in = zip.getInputStream(entry);
+                    try
+                    {
+                        addEntries(ClassFile.parse(IOUtil.toByteArray(in)), entries);
+                    }
+                    finally
+                    {
+                        IOUtil.close(in);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    /**
+     * Adds the entries describing a class, private and package private members are left out as no other
+     * code base can link against them
+     */
+    static void addEntries(ClassFile classFile, Collection<String> entries)
+    {
+        String owner = classFile.getClassName();
+        int packageEnd = owner.lastIndexOf('/');
+        if (packageEnd > 0)
+        {
+            entries.add("!" + owner.substring(0, packageEnd));
+        }
+        entries.add(owner + '#');
+        if (null != classFile.getSuperName())
+        {
+            entries.add(owner + "#>" + classFile.getSuperName());
+        }
+        for (String anInterface : classFile.getInterfaces())
+        {
+            entries.add(owner + "#>" + anInterface);
+        }
+        for (ClassFile.Member field : classFile.getFields())
+        {
+            if (field.isAccessible())
+            {
+                entries.add(owner + '#' + field.getName() + ':' + field.getDescriptor());
+            }
+        }
+        for (ClassFile.Member method : classFile.getMethods())
+        {
+            if (method.isAccessible())
+            {
+                entries.add(owner + '#' + method.getName() + method.getDescriptor());
+            }
+        }
+    }
+
+    /**
+     * Sorts and writes the entries
+     * @param entries
+     * @param file
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Collection<String> entries, File file) throws IOException
+    {
+        byte[][] sorted = new byte[entries.size()][];
+        int i = 0;
+        for (String entry : entries)
+        {
+            sorted[i++] = entry.getBytes("UTF-8");
+        }
+        Arrays.sort(sorted, UNSIGNED_ORDER);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+        {
+            throw new IOException("Unable to create " + parent);
+        }
+        File temp = File.createTempFile(file.getName(), ".tmp", parent);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(sorted.length);
+            int offset = 0;
+            for (byte[] entry : sorted)
+            {
+                out.writeInt(offset);
+                offset += entry.length;
+            }
+            out.writeInt(offset);
+            for (byte[] entry : sorted)
+            {
+                out.write(entry);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        if (!temp.renameTo(file))
+        {
+            // another build may have written the same index meanwhile
+            file.delete();
+            if (!temp.renameTo(file))
+            {
+                temp.delete();
+                throw new IOException("Unable to write " + file);
+            }
+        }
+    }
+
+    public int size()
+    {
+        return count;
+    }
+
+    public boolean containsPackage(String packageName)
+    {
+        return contains("!" + packageName);
+    }
+
+    public boolean containsClass(String owner)
+    {
+        return contains(owner + '#');
+    }
+
+    /**
+     * @param owner internal class name
+     * @param name of the field or method
+     * @param descriptor of the field or method
+     * @return true if the class itself declares an accessible member with this name and descriptor
+     */
+    public boolean containsMember(String owner, String name, String descriptor)
+    {
+        return contains(owner + '#' + name + (descriptor.startsWith("(") ? "" : ":") + descriptor);
+    }
+
+    /**
+     * @return true if the class itself declares an accessible method of this name, whatever its descriptor
+     */
+    public boolean containsMethodNamed(String owner, String name)
+    {
+        return !startingWith(owner + '#' + name + '(').isEmpty();
+    }
+
+    /**
+     * @return the direct super class and interfaces of a class
+     */
+    public List<String> getSupertypes(String owner)
+    {
+        String prefix = owner + "#>";
+        List<String> supertypes = new ArrayList<String>();
+        for (String entry : startingWith(prefix))
+        {
+            supertypes.add(entry.substring(prefix.length()));
+        }
+        return supertypes;
+    }
+
+    private boolean contains(String key)
+    {
+        byte[] bytes = toBytes(key);
+        int position = lowerBound(bytes);
+        return position < count && 0 == compare(position, bytes, false);
+    }
+
+    private List<String> startingWith(String prefix)
+    {
+        byte[] bytes = toBytes(prefix);
+        List<String> matches = new ArrayList<String>();
+        for (int position = lowerBound(bytes); position < count && 0 == compare(position, bytes, true); position++)
+        {
+            matches.add(entryAt(position));
+        }
+        return matches;
+    }
+
+    /**
+     * @return the position of the first entry not less than the key
+     */
+    private int lowerBound(byte[] key)
+    {
+        int low = 0;
+        int high = count;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (compare(middle, key, false) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares an entry with a key, when prefixOnly is set an entry starting with the key compares equal
+     */
+    private int compare(int position, byte[] key, boolean prefixOnly)
+    {
+        int start = dataStart + buffer.getInt(HEADER_SIZE + position * 4);
+        int length = dataStart + buffer.getInt(HEADER_SIZE + (position + 1) * 4) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++)
+        {
+            int difference = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (0 != difference)
+            {
+                return difference;
+            }
+        }
+        if (prefixOnly && length >= key.length)
+        {
+            return 0;
+        }
+        return length - key.length;
+    }
+
+    private String entryAt(int position)
+    {
+        int start = dataStart + buffer.getInt(HEADER_SIZE + position * 4);
+        byte[] bytes = new byte[dataStart + buffer.getInt(HEADER_SIZE + (position + 1) * 4) - start];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = buffer.get(start + i);
+        }
+        try
+        {
+            return new String(bytes, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static byte[] toBytes(String value)
+    {
+        try
+        {
+            return value.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+}
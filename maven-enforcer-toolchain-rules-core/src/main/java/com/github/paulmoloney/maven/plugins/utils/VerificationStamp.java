@@ -0,0 +1,165 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Records the outcome of verifying a tool so an unchanged tool need not be run again, typically kept in the
+ * project build directory so a clean build starts afresh.
+ * @author Paul Moloney
+ *
+ */
+public final class VerificationStamp {
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    private static final String RANGE = "range";
+
+    private static final String RESULT = "result";
+
+    private static final String VERSION = "version";
+
+    private static final String MESSAGE = "message";
+
+    private static final String PASSED = "passed";
+
+    private static final String FAILED = "failed";
+
+    private final String fingerprint;
+
+    private final String range;
+
+    private final boolean passed;
+
+    private final String version;
+
+    private final String message;
+
+    public VerificationStamp(String fingerprint, String range, boolean passed, String version, String message)
+    {
+        this.fingerprint = fingerprint;
+        this.range = range;
+        this.passed = passed;
+        this.version = version;
+        this.message = message;
+    }
+
+    /**
+     * @param file
+     * @return the stamp or null if there is none or it can not be read
+     */
+    public static VerificationStamp read(File file)
+    {
+        if (null == file || !file.isFile())
+        {
+            return null;
+        }
+        Properties values = new Properties();
+        InputStream in = null;
+        try
+        {
+            in = new FileInputStream(file);
+            values.load(in);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        finally
+        {
+            IOUtil.close(in);
+        }
+        String result = values.getProperty(RESULT);
+        if (null == values.getProperty(FINGERPRINT) || !(PASSED.equals(result) || FAILED.equals(result)))
+        {
+            return null;
+        }
+        return new VerificationStamp(values.getProperty(FINGERPRINT), values.getProperty(RANGE), PASSED.equals(result),
+            values.getProperty(VERSION), values.getProperty(MESSAGE));
+    }
+
+    public void write(File file) throws IOException
+    {
+        Properties values = new Properties();
+        values.setProperty(FINGERPRINT, fingerprint);
+        values.setProperty(RESULT, passed ? PASSED : FAILED);
+        if (null != range)
+        {
+            values.setProperty(RANGE, range);
+        }
+        if (null != version)
+        {
+            values.setProperty(VERSION, version);
+        }
+        if (null != message)
+        {
+            values.setProperty(MESSAGE, message);
+        }
+        File parent = file.getParentFile();
+        if (null != parent && !parent.isDirectory() && !parent.mkdirs())
+        {
+            throw new IOException("Unable to create " + parent);
+        }
+        OutputStream out = null;
+        try
+        {
+            out = new FileOutputStream(file);
+            values.store(out, "Toolchain verification stamp");
+        }
+        finally
+        {
+            IOUtil.close(out);
+        }
+    }
+
+    /**
+     * @param aFingerprint of the tool as it is now
+     * @param aRange the version range now required
+     * @return true if this stamp was recorded for the same tool and range
+     */
+    public boolean matches(String aFingerprint, String aRange)
+    {
+        return fingerprint.equals(aFingerprint) && (null == range ? null == aRange : range.equals(aRange));
+    }
+
+    public boolean isPassed()
+    {
+        return passed;
+    }
+
+    public String getVersion()
+    {
+        return version;
+    }
+
+    public String getMessage()
+    {
+        return message;
+    }
+}
@@ -20,12 +20,14 @@ package com.github.paulmoloney.maven.plugins.utils;
  */
 
 /**
+ * Extracts a version from the first line a tool prints when asked for its version.
  * @author Paul Moloney
  *
  */
-public class DefaultProcessExecutor {
-	
-    public ProcessExecutor createExecutor(String executable, String argument) {
-    	return new CommandlineAdapter(executable, argument);
-    }
+public interface VersionOutputParser {
+    /**
+     * @param output the first line of output of the tool
+     * @return the version or null if the output does not hold one
+     */
+    String parse(String output);
 }
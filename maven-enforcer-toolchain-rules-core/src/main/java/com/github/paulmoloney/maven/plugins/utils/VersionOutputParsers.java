@@ -0,0 +1,80 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The named version output parsers, and parsers for regular expressions which are compiled once per jvm so every
+ * module of a reactor shares them.
+ * <ul>
+ * <li>version - the first dotted number, e.g. 18.17.1 from v18.17.1 or 12.2.0 from gcc (GCC) 12.2.0</li>
+ * <li>second-token - the second whitespace separated word, e.g. 3.21.12 from libprotoc 3.21.12</li>
+ * <li>first-token - the first whitespace separated word</li>
+ * </ul>
+ * @author Paul Moloney
+ *
+ */
+public final class VersionOutputParsers {
+
+    private static final Map<String, VersionOutputParser> NAMED = new HashMap<String, VersionOutputParser>();
+
+    private static final ConcurrentMap<String, VersionOutputParser> COMPILED = new ConcurrentHashMap<String, VersionOutputParser>();
+
+    static
+    {
+        NAMED.put("version", new RegexVersionOutputParser("(\\d+(?:\\.\\d+)+(?:[-_+][0-9A-Za-z.]+)?)"));
+        NAMED.put("second-token", new RegexVersionOutputParser("^\\s*\\S+\\s+(\\S+)"));
+        NAMED.put("first-token", new RegexVersionOutputParser("^\\s*(\\S+)"));
+    }
+
+    private VersionOutputParsers()
+    {
+    }
+
+    /**
+     * @param name of a parser
+     * @return the parser or null if there is no parser of that name
+     */
+    public static VersionOutputParser forName(String name)
+    {
+        return NAMED.get(name);
+    }
+
+    /**
+     * @param regex the expression, its first group is the version when it has groups
+     * @return a parser for the expression, the same one for every call with the expression
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public static VersionOutputParser forPattern(String regex)
+    {
+        VersionOutputParser parser = COMPILED.get(regex);
+        if (null == parser)
+        {
+            parser = new RegexVersionOutputParser(regex);
+            VersionOutputParser existing = COMPILED.putIfAbsent(regex, parser);
+            parser = null == existing ? parser : existing;
+        }
+        return parser;
+    }
+}
@@ -0,0 +1,360 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the central directory of a zip or jar file with a couple of positioned reads, so that entry names can be
+ * listed and single small entries read without opening every entry of the archive.
+ * Zip64 archives are not supported.
+ * @author Paul Moloney
+ *
+ */
+public final class ZipDirectory {
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+    private static final int END_SIZE = 22;
+
+    private static final int CENTRAL_SIZE = 46;
+
+    private static final int LOCAL_SIZE = 30;
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 8;
+
+    /**
+     * Compressed bytes read at a time when only the head of an entry is wanted
+     */
+    private static final int HEAD_CHUNK = 512;
+
+    private final File file;
+
+    private final Map<String, Entry> entries;
+
+    private ZipDirectory(File file, Map<String, Entry> entries)
+    {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads the end of central directory record and then the central directory
+     * @param file a zip or jar file
+     * @return the directory of the file
+     * @throws IOException if the file is not a zip file
+     */
+    public static ZipDirectory open(File file) throws IOException
+    {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try
+        {
+            long length = in.length();
+            // the end record is followed by a comment of up to 65535 bytes
+            int tailLength = (int) Math.min(length, END_SIZE + 0xFFFF);
+            ByteBuffer tail = read(in, length - tailLength, tailLength);
+            int end = -1;
+            for (int i = tailLength - END_SIZE; i >= 0; i--)
+            {
+                if (END_SIGNATURE == tail.getInt(i))
+                {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0)
+            {
+                throw new IOException(file + " is not a zip file");
+            }
+            int count = tail.getShort(end + 10) & 0xFFFF;
+            long size = tail.getInt(end + 12) & 0xFFFFFFFFL;
+            long offset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+            if (0xFFFF == count || 0xFFFFFFFFL == size || 0xFFFFFFFFL == offset)
+            {
+                throw new IOException(file + " is a zip64 file which is not supported");
+            }
+            if (offset + size > length)
+            {
+                throw new IOException(file + " has a corrupt central directory");
+            }
+
+            ByteBuffer directory = read(in, offset, (int) size);
+            Map<String, Entry> entries = new LinkedHashMap<String, Entry>(count * 2);
+            int position = 0;
+            for (int i = 0; i < count; i++)
+            {
+                if (position + CENTRAL_SIZE > size || CENTRAL_SIGNATURE != directory.getInt(position))
+                {
+                    throw new IOException(file + " has a corrupt central directory entry " + i);
+                }
+                int method = directory.getShort(position + 10) & 0xFFFF;
+                long compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+                long uncompressedSize = directory.getInt(position + 24) & 0xFFFFFFFFL;
+                int nameLength = directory.getShort(position + 28) & 0xFFFF;
+                int extraLength = directory.getShort(position + 30) & 0xFFFF;
+                int commentLength = directory.getShort(position + 32) & 0xFFFF;
+                long localOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+                byte[] name = new byte[nameLength];
+                directory.position(position + CENTRAL_SIZE);
+                directory.get(name);
+                entries.put(toString(name), new Entry(method, compressedSize, uncompressedSize, localOffset));
+                position += CENTRAL_SIZE + nameLength + extraLength + commentLength;
+            }
+            return new ZipDirectory(file, entries);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the entry names in directory order, directories end with /
+     */
+    public Set<String> getNames()
+    {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public boolean contains(String name)
+    {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * @param name of the entry
+     * @return the uncompressed content or null if there is no such entry
+     * @throws IOException if the entry can not be read
+     */
+    public byte[] read(String name) throws IOException
+    {
+        Entry entry = entries.get(name);
+        if (null == entry)
+        {
+            return null;
+        }
+        if (entry.uncompressedSize > Integer.MAX_VALUE || entry.compressedSize > Integer.MAX_VALUE)
+        {
+            throw new IOException(name + " in " + file + " is too large to read");
+        }
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try
+        {
+            ByteBuffer header = read(in, entry.localOffset, LOCAL_SIZE);
+            if (LOCAL_SIGNATURE != header.getInt(0))
+            {
+                throw new IOException(file + " has a corrupt local header for " + name);
+            }
+            long dataOffset = entry.localOffset + LOCAL_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+            ByteBuffer data = read(in, dataOffset, (int) entry.compressedSize);
+            if (STORED == entry.method)
+            {
+                return data.array();
+            }
+            if (DEFLATED != entry.method)
+            {
+                throw new IOException(name + " in " + file + " uses unsupported compression method " + entry.method);
+            }
+            Inflater inflater = new Inflater(true);
+            try
+            {
+                // a trailing dummy byte is needed by nowrap inflation
+                byte[] input = new byte[data.capacity() + 1];
+                System.arraycopy(data.array(), 0, input, 0, data.capacity());
+                inflater.setInput(input);
+                byte[] content = new byte[(int) entry.uncompressedSize];
+                int inflated = 0;
+                while (inflated < content.length && !inflater.finished())
+                {
+                    int count = inflater.inflate(content, inflated, content.length - inflated);
+                    if (0 == count && (inflater.needsInput() || inflater.needsDictionary()))
+                    {
+                        break;
+                    }
+                    inflated += count;
+                }
+                if (inflated != content.length)
+                {
+                    throw new IOException(name + " in " + file + " is truncated");
+                }
+                return content;
+            }
+            catch (DataFormatException e)
+            {
+                throw new IOException(name + " in " + file + " is corrupt: " + e.getMessage());
+            }
+            finally
+            {
+                inflater.end();
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the start of an entry, e.g. a class file header, inflating no more than is needed. Reads are positioned
+     * so one channel may be shared by several threads.
+     * @param channel open on the file of this directory
+     * @param name of the entry
+     * @param length the number of bytes wanted
+     * @return up to length bytes, fewer if the entry is shorter, or null if there is no such entry
+     * @throws IOException if the entry can not be read
+     */
+    public byte[] readHead(FileChannel channel, String name, int length) throws IOException
+    {
+        Entry entry = entries.get(name);
+        if (null == entry)
+        {
+            return null;
+        }
+        ByteBuffer header = read(channel, entry.localOffset, LOCAL_SIZE);
+        if (LOCAL_SIGNATURE != header.getInt(0))
+        {
+            throw new IOException(file + " has a corrupt local header for " + name);
+        }
+        long dataOffset = entry.localOffset + LOCAL_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+        int wanted = (int) Math.min(length, entry.uncompressedSize);
+        if (STORED == entry.method)
+        {
+            return read(channel, dataOffset, wanted).array();
+        }
+        if (DEFLATED != entry.method)
+        {
+            throw new IOException(name + " in " + file + " uses unsupported compression method " + entry.method);
+        }
+        Inflater inflater = new Inflater(true);
+        try
+        {
+            byte[] content = new byte[wanted];
+            int inflated = 0;
+            long consumed = 0;
+            while (inflated < wanted && !inflater.finished())
+            {
+                if (inflater.needsInput())
+                {
+                    if (consumed > entry.compressedSize)
+                    {
+                        break;
+                    }
+                    int chunk = (int) Math.min(HEAD_CHUNK, entry.compressedSize - consumed);
+                    // a trailing dummy byte is needed by nowrap inflation
+                    inflater.setInput(0 == chunk ? new byte[1] : read(channel, dataOffset + consumed, chunk).array());
+                    consumed += Math.max(1, chunk);
+                }
+                if (inflater.needsDictionary())
+                {
+                    break;
+                }
+                inflated += inflater.inflate(content, inflated, wanted - inflated);
+            }
+            if (inflated != wanted)
+            {
+                throw new IOException(name + " in " + file + " is truncated");
+            }
+            return content;
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException(name + " in " + file + " is corrupt: " + e.getMessage());
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    public File getFile()
+    {
+        return file;
+    }
+
+    private static ByteBuffer read(RandomAccessFile in, long position, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        in.seek(position);
+        in.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+            {
+                throw new IOException("Unexpected end of " + channel);
+            }
+        }
+        return buffer;
+    }
+
+    private static String toString(byte[] name)
+    {
+        try
+        {
+            return new String(name, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
+    private static final class Entry
+    {
+        private final int method;
+
+        private final long compressedSize;
+
+        private final long uncompressedSize;
+
+        private final long localOffset;
+
+        Entry(int method, long compressedSize, long uncompressedSize, long localOffset)
+        {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.uncompressedSize = uncompressedSize;
+            this.localOffset = localOffset;
+        }
+    }
+}
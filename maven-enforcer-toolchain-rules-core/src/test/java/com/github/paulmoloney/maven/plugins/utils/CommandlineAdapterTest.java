@@ -0,0 +1,91 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for CommandlineAdapter.
+ */
+public class CommandlineAdapterTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp()
+	{
+		Assume.assumeTrue(new File("/bin/sh").isFile());
+	}
+
+	@Test
+	public void testBracketedToolOutputIsKept() throws Exception
+	{
+		File tool = newScript("tool", "echo '[tool] 1.2.3'\necho 'built today'");
+
+		assertThat(new CommandlineAdapter(tool.getAbsolutePath(), "--version").runApplication(), is("[tool] 1.2.3"));
+	}
+
+	@Test
+	public void testJvmNoticesAreSkippedWithJvmOptions() throws Exception
+	{
+		File jar = newScript("jar", "echo 'Picked up JAVA_TOOL_OPTIONS: -Dfile.encoding=UTF-8' 1>&2\n"
+			+ "echo '[0.012s][warning][cds] Unable to use shared archive' 1>&2\n"
+			+ "echo 'OpenJDK 64-Bit Server VM warning: Options -Xverify:none deprecated' 1>&2\n"
+			+ "echo 'jar 17.0.9'");
+
+		assertThat(new CommandlineAdapter(jar.getAbsolutePath(), Arrays.asList("-J-Xshare:auto", "--version")).runApplication(),
+			is("jar 17.0.9"));
+		assertThat(new CommandlineAdapter(jar.getAbsolutePath(), "--version").runApplication(),
+			is("Picked up JAVA_TOOL_OPTIONS: -Dfile.encoding=UTF-8"));
+	}
+
+	@Test
+	public void testFirstStdoutLineAfterNotices() throws Exception
+	{
+		File jar = newScript("jar", "echo '[0.012s][info   ][cds] Mapped dynamic archive'\necho 'jar 17.0.9'");
+
+		assertThat(new CommandlineAdapter(jar.getAbsolutePath(), Arrays.asList("-J-Xshare:auto", "--version")).runApplication(),
+			is("jar 17.0.9"));
+		assertThat(new CommandlineAdapter(jar.getAbsolutePath(), "--version").runApplication(),
+			is("[0.012s][info   ][cds] Mapped dynamic archive"));
+	}
+
+	private File newScript(String name, String body) throws Exception
+	{
+		File script = folder.newFile(name);
+		FileUtils.fileWrite(script.getAbsolutePath(), "#!/bin/sh\n" + body + "\n");
+		script.setExecutable(true);
+		return script;
+	}
+}
@@ -0,0 +1,67 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for CtSymReleases.
+ */
+public class CtSymReleasesTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testParsesBase36Directories()
+	{
+		assertThat(CtSymReleases.parse(Arrays.asList("89ABC/java.base/java/lang/Object.sig", "9ABC-modules/java.base/module-info.sig",
+			"DEFGHIJKL/java.base/java/lang/Record.sig", "META-INF/MANIFEST.MF", "README")),
+			contains(8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20, 21));
+	}
+
+	@Test
+	public void testAddsOwnFeatureRelease() throws Exception
+	{
+		File jdkHome = folder.newFolder("jdk-12");
+		new File(jdkHome, "lib").mkdirs();
+		ZipOutputStream ctSym = new ZipOutputStream(new FileOutputStream(new File(jdkHome, "lib/ct.sym")));
+		ctSym.putNextEntry(new ZipEntry("789AB/java.base/java/lang/Object.sig"));
+		ctSym.close();
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "JAVA_VERSION=\"12.0.2\"\n");
+
+		assertThat(CtSymReleases.getReleases(jdkHome), contains(7, 8, 9, 10, 11, 12));
+		assertThat(CtSymReleases.getReleases(folder.newFolder("jdk1.6")), is(empty()));
+	}
+}
@@ -0,0 +1,127 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for ElfHeader.
+ */
+public class ElfHeaderTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReadsClassAndMachine() throws Exception
+	{
+		ElfHeader header = ElfHeader.read(writeElf("java", ElfHeader.CLASS_64, ByteOrder.LITTLE_ENDIAN, 62));
+
+		assertThat(header.getElfClass(), is(ElfHeader.CLASS_64));
+		assertThat(header.getMachine(), is(62));
+		assertThat(header.toString(), is("64-bit amd64"));
+		assertTrue(header.isCompatible(ElfHeader.forArch("amd64")));
+		assertTrue(header.isCompatible(ElfHeader.forArch("X86_64")));
+	}
+
+	@Test
+	public void testReadsBigEndianMachine() throws Exception
+	{
+		ElfHeader header = ElfHeader.read(writeElf("libjvm.so", ElfHeader.CLASS_64, ByteOrder.BIG_ENDIAN, 22));
+
+		assertThat(header.getMachine(), is(22));
+		assertTrue(header.isCompatible(ElfHeader.forArch("s390x")));
+	}
+
+	@Test
+	public void testOtherArchitecturesAreNotCompatible() throws Exception
+	{
+		ElfHeader aarch64 = ElfHeader.read(writeElf("javac", ElfHeader.CLASS_64, ByteOrder.LITTLE_ENDIAN, 183));
+		ElfHeader x86 = ElfHeader.read(writeElf("javac32", ElfHeader.CLASS_32, ByteOrder.LITTLE_ENDIAN, 3));
+
+		assertFalse(aarch64.isCompatible(ElfHeader.forArch("amd64")));
+		assertFalse(x86.isCompatible(ElfHeader.forArch("amd64")));
+		assertTrue(x86.isCompatible(ElfHeader.forArch("i386")));
+		assertThat(x86.toString(), is("32-bit x86"));
+		assertThat(ElfHeader.forArch("sparcv9"), is(nullValue()));
+	}
+
+	@Test
+	public void testByteOrderIsCompared() throws Exception
+	{
+		ElfHeader ppc64 = ElfHeader.read(writeElf("javac-ppc64", ElfHeader.CLASS_64, ByteOrder.BIG_ENDIAN, 21));
+		ElfHeader ppc64le = ElfHeader.read(writeElf("javac-ppc64le", ElfHeader.CLASS_64, ByteOrder.LITTLE_ENDIAN, 21));
+
+		assertThat(ppc64.getData(), is(ElfHeader.BIG_ENDIAN));
+		assertThat(ppc64.toString(), is("64-bit ppc64"));
+		assertThat(ppc64le.toString(), is("64-bit ppc64le"));
+		assertTrue(ppc64.isCompatible(ElfHeader.forArch("ppc64")));
+		assertFalse(ppc64.isCompatible(ElfHeader.forArch("ppc64le")));
+		assertTrue(ppc64le.isCompatible(ElfHeader.forArch("ppc64le")));
+		assertFalse(ppc64le.isCompatible(ElfHeader.forArch("ppc64")));
+	}
+
+	@Test
+	public void testOtherFilesAreNotElf() throws Exception
+	{
+		File script = folder.newFile("javac.sh");
+		FileUtils.fileWrite(script.getAbsolutePath(), "#!/bin/sh\nexec java \"$@\"\n");
+		File tiny = folder.newFile("tiny");
+		FileUtils.fileWrite(tiny.getAbsolutePath(), "\u007fELF");
+
+		assertThat(ElfHeader.read(script), is(nullValue()));
+		assertThat(ElfHeader.read(tiny), is(nullValue()));
+	}
+
+	private File writeElf(String name, int elfClass, ByteOrder order, int machine) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(64).order(order);
+		header.put(new byte[] { 0x7F, 'E', 'L', 'F', (byte) elfClass, (byte) (ByteOrder.BIG_ENDIAN == order ? 2 : 1), 1 });
+		header.putShort(16, (short) 2);
+		header.putShort(18, (short) machine);
+		File file = folder.newFile(name);
+		OutputStream out = new FileOutputStream(file);
+		try
+		{
+			out.write(header.array());
+		}
+		finally
+		{
+			IOUtil.close(out);
+		}
+		return file;
+	}
+}
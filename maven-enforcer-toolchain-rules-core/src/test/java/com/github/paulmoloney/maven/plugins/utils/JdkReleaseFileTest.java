@@ -0,0 +1,70 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for JdkReleaseFile.
+ */
+public class JdkReleaseFileTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testReadsQuotedValues() throws Exception
+	{
+		File jdkHome = folder.newFolder("jdk-21.0.1+12");
+		FileUtils.fileWrite(JdkReleaseFile.locate(jdkHome).getAbsolutePath(), "IMPLEMENTOR=\"Eclipse Adoptium\"\n"
+			+ "JAVA_RUNTIME_VERSION=\"21.0.1+12-LTS\"\nJAVA_VERSION=\"21.0.1\"\nJVM_VARIANT=\"Hotspot\"\nLIBC=gnu\n");
+
+		JdkReleaseFile release = JdkReleaseFile.forJdk(jdkHome);
+
+		assertThat(release.getJavaVersion(), is("21.0.1"));
+		assertThat(release.getFeatureVersion(), is(21));
+		assertThat(release.getImplementor(), is("Eclipse Adoptium"));
+		assertThat(release.getJvmVariant(), is("Hotspot"));
+		assertThat(release.get(JdkReleaseFile.JAVA_RUNTIME_VERSION), is("21.0.1+12-LTS"));
+		assertThat(release.get("LIBC"), is("gnu"));
+		assertThat(release.get(JdkReleaseFile.IMPLEMENTOR_VERSION), is(nullValue()));
+		assertThat(JdkReleaseFile.forJdk(jdkHome), is(sameInstance(release)));
+	}
+
+	@Test
+	public void testLegacyVersionAndMissingFile() throws Exception
+	{
+		File jdkHome = folder.newFolder("jdk1.8.0_392");
+		FileUtils.fileWrite(JdkReleaseFile.locate(jdkHome).getAbsolutePath(), "JAVA_VERSION=\"1.8.0_392\"\n");
+
+		assertThat(JdkReleaseFile.forJdk(jdkHome).getFeatureVersion(), is(8));
+		assertThat(JdkReleaseFile.forJdk(folder.newFolder("jdk1.6")), is(nullValue()));
+	}
+}
@@ -0,0 +1,146 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for ProbeJvmProfile.
+ */
+public class ProbeJvmProfileTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testStartupOptionsPrecedeToolArguments() throws Exception
+	{
+		File jdkHome = newJdk("jdk-11.0.21", "11.0.21", "modules of 11");
+		ProbeJvmProfile profile = new ProbeJvmProfile(jdkHome, "jar", folder.newFolder("cache"));
+
+		List<String> arguments = profile.getArguments(Arrays.asList("--version"));
+		List<String> jvmArguments = profile.getJvmArguments(Arrays.asList("-version"));
+
+		assertThat(profile.getArchive(), is(nullValue()));
+		assertThat(arguments.get(0), is("-J-XX:+IgnoreUnrecognizedVMOptions"));
+		assertThat(arguments, hasItems("-J-XX:TieredStopAtLevel=1", "-J-Xshare:auto"));
+		assertThat(arguments.get(arguments.size() - 1), is("--version"));
+		assertThat(jvmArguments.get(0), is("-XX:+IgnoreUnrecognizedVMOptions"));
+		assertThat(jvmArguments.get(jvmArguments.size() - 1), is("-version"));
+		for (String argument : arguments)
+		{
+			assertThat(argument, not(containsString("Archive")));
+		}
+	}
+
+	@Test
+	public void testArchiveIsKeyedByModulesDigestAndTool() throws Exception
+	{
+		File jdkHome = newJdk("jdk-17.0.9", "17.0.9", "modules of 17");
+		File cache = folder.newFolder("cache");
+		File archive = new File(cache, "cds" + File.separator
+			+ FileFingerprint.of(new File(jdkHome, "lib/modules")).toDigest() + "-jar.jsa");
+
+		ProbeJvmProfile profile = new ProbeJvmProfile(jdkHome, "jar", cache);
+		assertThat(profile.getArchive(), is(archive));
+
+		List<String> arguments = profile.getArguments(Arrays.asList("--version"));
+		String dump = arguments.get(arguments.size() - 2);
+		assertThat(dump, startsWith("-J-XX:ArchiveClassesAtExit=" + archive.getParent()));
+		// stand in for the jvm dumping its archive at exit
+		FileUtils.fileWrite(dump.substring(dump.indexOf('=') + 1), "archive");
+		profile.completed();
+		assertTrue(archive.isFile());
+
+		arguments = new ProbeJvmProfile(jdkHome, "jar", cache).getArguments(Arrays.asList("--version"));
+		assertThat(arguments, hasItem("-J-XX:SharedArchiveFile=" + archive.getAbsolutePath()));
+
+		FileUtils.fileWrite(new File(jdkHome, "lib/modules").getAbsolutePath(), "modules of an updated 17");
+		assertThat(new ProbeJvmProfile(jdkHome, "jar", cache).getArchive(), is(not(archive)));
+	}
+
+	@Test
+	public void testToolsOfOneJdkGetTheirOwnArchive() throws Exception
+	{
+		File jdkHome = newJdk("jdk-17.0.9", "17.0.9", "modules of 17");
+		File cache = folder.newFolder("cache");
+
+		File jar = new ProbeJvmProfile(jdkHome, "jar", cache).getArchive();
+		File javac = new ProbeJvmProfile(jdkHome, "javac", cache).getArchive();
+
+		assertThat(jar, is(notNullValue()));
+		assertThat(javac, is(not(jar)));
+		assertThat(javac.getParentFile(), is(jar.getParentFile()));
+		assertThat(new ProbeJvmProfile(jdkHome, "javac", cache).getArchive(), is(javac));
+	}
+
+	@Test
+	public void testFallsBackWhenArchiveCannotBeCreated() throws Exception
+	{
+		File jdkHome = newJdk("jdk-21.0.1", "21.0.1", "modules of 21");
+		File cache = folder.newFile("cache");
+
+		ProbeJvmProfile profile = new ProbeJvmProfile(jdkHome, "jar", cache);
+		List<String> arguments = profile.getArguments(Arrays.asList("--version"));
+		profile.completed();
+
+		assertThat(profile.getArchive(), is(notNullValue()));
+		assertThat(arguments.get(0), is("-J-XX:+IgnoreUnrecognizedVMOptions"));
+		assertThat(arguments.get(arguments.size() - 1), is("--version"));
+		for (String argument : arguments)
+		{
+			assertThat(argument, not(containsString("Archive")));
+		}
+	}
+
+	@Test
+	public void testNoArchiveWithoutModulesOrCache() throws Exception
+	{
+		File jdkHome = newJdk("jdk-17.0.9", "17.0.9", null);
+
+		assertThat(new ProbeJvmProfile(jdkHome, "jar", folder.newFolder("cache")).getArchive(), is(nullValue()));
+		assertThat(new ProbeJvmProfile(jdkHome, "jar", null).getArchive(), is(nullValue()));
+		assertThat(new ProbeJvmProfile(null, null, null).getArguments(Arrays.asList("-version")), hasItem("-version"));
+	}
+
+	private File newJdk(String name, String javaVersion, String modules) throws Exception
+	{
+		File jdkHome = folder.newFolder(name);
+		FileUtils.fileWrite(JdkReleaseFile.locate(jdkHome).getAbsolutePath(), "JAVA_VERSION=\"" + javaVersion + "\"\n");
+		if (null != modules)
+		{
+			new File(jdkHome, "lib").mkdirs();
+			FileUtils.fileWrite(new File(jdkHome, "lib/modules").getAbsolutePath(), modules);
+		}
+		return jdkHome;
+	}
+}
@@ -0,0 +1,65 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for VersionOutputParsers.
+ */
+public class VersionOutputParsersTest
+{
+	@Test
+	public void testVersionFindsFirstDottedNumber()
+	{
+		VersionOutputParser parser = VersionOutputParsers.forName("version");
+
+		assertThat(parser.parse("v18.17.1"), is("18.17.1"));
+		assertThat(parser.parse("gcc (GCC) 12.2.0"), is("12.2.0"));
+		assertThat(parser.parse("javac 1.8.0_392"), is("1.8.0_392"));
+		assertThat(parser.parse("openjdk 17.0.9+9 2023-10-17"), is("17.0.9+9"));
+		assertThat(parser.parse("no version here"), is(nullValue()));
+	}
+
+	@Test
+	public void testTokens()
+	{
+		assertThat(VersionOutputParsers.forName("second-token").parse("libprotoc 3.21.12"), is("3.21.12"));
+		assertThat(VersionOutputParsers.forName("second-token").parse("protoc"), is(nullValue()));
+		assertThat(VersionOutputParsers.forName("first-token").parse("  3.9.5 (Maven)"), is("3.9.5"));
+		assertThat(VersionOutputParsers.forName("first-token").parse(null), is(nullValue()));
+		assertThat(VersionOutputParsers.forName("third-token"), is(nullValue()));
+	}
+
+	@Test
+	public void testPatternsAreCompiledOnce()
+	{
+		VersionOutputParser parser = VersionOutputParsers.forPattern("libprotoc (\\S+)");
+
+		assertThat(VersionOutputParsers.forPattern("libprotoc (\\S+)"), is(sameInstance(parser)));
+		assertThat(parser.parse("libprotoc 25.1"), is("25.1"));
+		assertThat(VersionOutputParsers.forPattern("\\d+\\.\\d+").parse("cmake version 3.27.7"), is("3.27"));
+	}
+}
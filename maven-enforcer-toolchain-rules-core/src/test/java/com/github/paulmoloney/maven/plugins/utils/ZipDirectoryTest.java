@@ -0,0 +1,191 @@
+package com.github.paulmoloney.maven.plugins.utils;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for ZipDirectory.
+ */
+public class ZipDirectoryTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] content;
+
+	@Before
+	public void setUp()
+	{
+		// random bytes barely compress, so the deflated entry spans several chunks
+		content = new byte[4096];
+		new Random(42).nextBytes(content);
+	}
+
+	@Test
+	public void testReadsHeadOfStoredEntry() throws Exception
+	{
+		File zip = writeZip(ZipEntry.STORED);
+		ZipDirectory directory = ZipDirectory.open(zip);
+
+		assertThat(directory.getNames(), contains("data.bin", "short.txt"));
+		assertArrayEquals(head(8), readHead(directory, "data.bin", 8));
+		assertArrayEquals(content, directory.read("data.bin"));
+	}
+
+	@Test
+	public void testReadsHeadOfDeflatedEntry() throws Exception
+	{
+		ZipDirectory directory = ZipDirectory.open(writeZip(ZipEntry.DEFLATED));
+
+		assertArrayEquals(head(8), readHead(directory, "data.bin", 8));
+		assertArrayEquals(head(3000), readHead(directory, "data.bin", 3000));
+		assertArrayEquals("abc".getBytes("UTF-8"), readHead(directory, "short.txt", 8));
+		assertThat(readHead(directory, "missing.bin", 8), is(nullValue()));
+	}
+
+	@Test
+	public void testTruncatedEntryFails() throws Exception
+	{
+		File zip = writeZip(ZipEntry.DEFLATED);
+		// claim the deflated data of the first entry ends after 10 bytes
+		RandomAccessFile file = new RandomAccessFile(zip, "rw");
+		try
+		{
+			byte[] bytes = new byte[(int) file.length()];
+			file.readFully(bytes);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+			for (int i = 0; i < bytes.length - 4; i++)
+			{
+				if (0x02014b50 == buffer.getInt(i))
+				{
+					file.seek(i + 20);
+					file.write(new byte[] { 10, 0, 0, 0 });
+					break;
+				}
+			}
+		}
+		finally
+		{
+			file.close();
+		}
+		ZipDirectory directory = ZipDirectory.open(zip);
+		try
+		{
+			readHead(directory, "data.bin", 3000);
+			fail("Only 10 bytes of the entry are available");
+		}
+		catch (IOException e)
+		{
+			assertThat(e.getMessage(), containsString("data.bin in " + zip + " is truncated"));
+		}
+	}
+
+	@Test
+	public void testOtherFilesAreNotZips() throws Exception
+	{
+		File text = folder.newFile("release");
+		FileUtils.fileWrite(text.getAbsolutePath(), "JAVA_VERSION=\"17.0.9\"\n");
+		try
+		{
+			ZipDirectory.open(text);
+			fail("A release file is not a zip file");
+		}
+		catch (IOException e)
+		{
+			assertThat(e.getMessage(), containsString("is not a zip file"));
+		}
+	}
+
+	private byte[] head(int length)
+	{
+		byte[] head = new byte[length];
+		System.arraycopy(content, 0, head, 0, length);
+		return head;
+	}
+
+	private byte[] readHead(ZipDirectory directory, String name, int length) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(directory.getFile(), "r");
+		try
+		{
+			FileChannel channel = file.getChannel();
+			return directory.readHead(channel, name, length);
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+
+	private File writeZip(int method) throws IOException
+	{
+		File zip = folder.newFile("test.zip");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+		try
+		{
+			putEntry(out, "data.bin", content, method);
+			putEntry(out, "short.txt", "abc".getBytes("UTF-8"), method);
+		}
+		finally
+		{
+			out.close();
+		}
+		return zip;
+	}
+
+	private void putEntry(ZipOutputStream out, String name, byte[] data, int method) throws IOException
+	{
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		if (ZipEntry.STORED == method)
+		{
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			entry.setSize(data.length);
+			entry.setCompressedSize(data.length);
+			entry.setCrc(crc.getValue());
+		}
+		out.putNextEntry(entry);
+		out.write(data);
+		out.closeEntry();
+	}
+}
@@ -0,0 +1,690 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.plugins.enforcer.AbstractVersionEnforcer;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
+
+import org.codehaus.plexus.compiler.CompilerError;
+import org.codehaus.plexus.util.Os;
+import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import com.github.paulmoloney.maven.plugins.utils.CompilerLevels;
+import com.github.paulmoloney.maven.plugins.utils.CtSymReleases;
+import com.github.paulmoloney.maven.plugins.utils.ElfHeader;
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+
+/**
+ * Helper utility methods that toolchain aware rules can build upon
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: AbstractToolChainAwareRule.java $
+ */
+public abstract class AbstractToolChainAwareRule extends AbstractVersionEnforcer {
+    /**
+     * Architecture problems per native file fingerprint, empty when the file suits the host or is not an ELF file
+     */
+    private static final ConcurrentMap<FileFingerprint, String> ARCHITECTURES = new ConcurrentHashMap<FileFingerprint, String>();
+
+    private ToolchainManager toolchainManager;
+
+    private MavenSession session;
+
+    protected String executable;
+
+    //@Parameter( defaultValue = "${project.build.outputDirectory}", required = true, readonly = true )
+    private File outputDirectory;
+
+    /**
+     * The directory to run the compiler from if fork is true.
+     */
+    //@Parameter( defaultValue = "${basedir}", required = true, readonly = true )
+    private File basedir; 
+
+    /**
+     * The target directory of the project, verification stamps are kept here so that clean resets them.
+     */
+    @Parameter( defaultValue = "${project.build.directory}", required = true, readonly = true )
+    private File buildDirectory;
+
+    /**
+     * Where results that outlive a clean build are kept, e.g. indexes of a jdk, defaults to ~/.m2/enforcer-toolchain-rules
+     */
+    @Parameter
+    private File cacheDirectory;
+
+    /**
+     * Fail when a jdk tool or its libjvm.so is not built for the architecture of the jvm running maven
+     */
+    @Parameter (property = "enforcer.toolchain.checkArchitecture", defaultValue = "false")
+    private boolean checkArchitecture;
+
+    protected void init(EnforcerRuleHelper helper) throws EnforcerRuleException, MojoExecutionException
+    {
+    	final String aVersion = getVersion(); 
+    	if (null == aVersion || "".equals(aVersion.trim()))
+    	{
+    		throw new MojoExecutionException("Version parameter was not supplied for rule usage");
+    	}
+        String version = aVersion;
+        try
+        {
+            if (-1 != version.indexOf("${"))
+            {
+                version = (String) helper.evaluate(aVersion);
+                setVersion(version);
+            }
+        }
+        catch (ExpressionEvaluationException e)
+        {
+                throw new MojoExecutionException("Unable to evaluate version " + aVersion, e);
+        }
+    	try
+    	{
+    	    VersionRange.createFromVersionSpec( version );
+    	}
+    	catch (InvalidVersionSpecificationException e)
+    	{
+    		throw new MojoExecutionException("Invalid version parameter was supplied for rule usage", e);
+    	}
+    	initEnvironment(helper);
+    }
+
+    /**
+     * Looks up the session, toolchain manager and project directories, rules that do not enforce a version
+     * range can call this instead of {@link #init(EnforcerRuleHelper)}
+     * @param helper
+     * @throws MojoExecutionException if the maven environment can not be determined
+     */
+    protected void initEnvironment(EnforcerRuleHelper helper) throws MojoExecutionException
+    {
+    	try
+	    {
+	        session = (MavenSession) helper.evaluate("${session}");
+	        toolchainManager = (ToolchainManager) helper.getComponent(ToolchainManager.class);
+	        outputDirectory = new File((String) helper.evaluate("${project.build.outputDirectory}"));
+	        basedir = new File((String) helper.evaluate("${basedir}"));
+	        String aBuildDirectory = (String) helper.evaluate("${project.build.directory}");
+	        buildDirectory = null == aBuildDirectory ? null : new File(aBuildDirectory);
+	    }
+	    catch (ExpressionEvaluationException e)
+	    {
+	        throw new MojoExecutionException ("Unable to evaluate maven environment", e);
+	    }
+	    catch (ComponentLookupException e)
+	    {
+	        throw new MojoExecutionException ("Unable to retrieve component", e);
+	    }
+    }
+
+    //TODO remove the part with ToolchainManager lookup once we depend on
+    //3.0.9 (have it as prerequisite). Define as regular component field then.
+    protected Toolchain findToolChain(String type, EnforcerRuleHelper helper, MavenProject project) throws MojoExecutionException
+    {
+    	
+	    Toolchain tc = null;
+	    if ( toolchainManager != null )
+	    {
+	        tc = toolchainManager.getToolchainFromBuildContext( type, session );
+	    }
+	    else
+	    {
+	    	helper.getLog().warn("Toolchain manager could not be found, toolchain plugin must run before the enforcer plugin");
+	    	//tc = createToolChainManager(type, log, project);
+	    }
+	    if ( tc != null )
+	    {
+	    	helper.getLog().debug("Toolchain found for type: " + type);
+	    }
+	    else
+	    {
+	    	helper.getLog().debug("No toolchain found for type " + type);
+	    }
+	    return tc;
+    }
+
+    /**
+     * Finds a tool in the jdk toolchain, falling back to the typical environment variables when allowed
+     * @param tool the name of the tool e.g. javac
+     * @param helper
+     * @param log
+     * @param isFallBackAllowed
+     * @return the path to the tool or null if one is not found
+     * @throws EnforcerRuleException
+     */
+    protected String findJdkTool(String tool, EnforcerRuleHelper helper, Log log, boolean isFallBackAllowed) throws EnforcerRuleException
+    {
+        String command = null;
+        try
+        {
+            Toolchain tc = findToolChain("jdk", helper, null);
+            if (tc != null)
+            {
+                command = tc.findTool( tool );
+            }
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("", e);
+        }
+
+        if (null == command && isFallBackAllowed)
+        {
+            command = findToolExecutable(tool + getExecutableExtension(), log, "java.home",
+                    new String [] { "../bin", "bin", "../sh" },
+                    new String [] { "JDK_HOME", "JAVA_HOME" }, new String[] { "bin", "sh" }
+                );
+        }
+        checkArchitecture(command, log);
+        return command;
+    }
+
+    /**
+     * When checkArchitecture is set, compares the ELF class, byte order and machine of a tool and of the libjvm.so
+     * of its jdk with the os.arch of the jvm running maven, so a toolchain of the wrong architecture fails before
+     * anything is run rather than failing slowly or running emulated. That is the architecture of the maven jvm,
+     * which may differ from the host's, e.g. a 32-bit jvm on an x86_64 host. Files that are not ELF files, e.g.
+     * scripts or windows and mac executables, are not checked.
+     * @param tool path to the tool, may be null
+     * @param log
+     * @throws EnforcerRuleException if the tool or libjvm.so was built for another architecture
+     */
+    protected void checkArchitecture(String tool, Log log) throws EnforcerRuleException
+    {
+        ElfHeader host = ElfHeader.forArch(System.getProperty("os.arch"));
+        if (!checkArchitecture || null == tool || null == host)
+        {
+            return;
+        }
+        File toolFile = new File(tool);
+        List<File> files = new ArrayList<File>();
+        files.add(toolFile);
+        File libjvm = findLibjvm(getJdkHome(tool));
+        if (null != libjvm)
+        {
+            files.add(libjvm);
+        }
+        for (File file : files)
+        {
+            FileFingerprint fingerprint = FileFingerprint.of(file);
+            if (null == fingerprint)
+            {
+                continue;
+            }
+            String problem = ARCHITECTURES.get(fingerprint);
+            if (null == problem)
+            {
+                problem = "";
+                try
+                {
+                    ElfHeader header = ElfHeader.read(file);
+                    if (null != header && !header.isCompatible(host))
+                    {
+                        problem = fingerprint.getPath() + " is a " + header + " file but the jvm running maven is "
+                            + System.getProperty("os.arch") + " and needs " + host + ", the toolchain is for another architecture";
+                    }
+                }
+                catch (IOException e)
+                {
+                    log.debug("Unable to read the ELF header of " + file, e);
+                }
+                ARCHITECTURES.put(fingerprint, problem);
+            }
+            if (problem.length() > 0)
+            {
+                throw new EnforcerRuleException(problem);
+            }
+        }
+    }
+
+    /**
+     * @return lib/server/libjvm.so on jdk 9+, [jre/]lib/&lt;arch&gt;/server/libjvm.so on older jdks or null
+     */
+    private File findLibjvm(File jdkHome)
+    {
+        if (null == jdkHome)
+        {
+            return null;
+        }
+        String[] libDirs = { "lib", "jre" + File.separator + "lib" };
+        for (String libDir : libDirs)
+        {
+            File lib = new File(jdkHome, libDir);
+            File libjvm = new File(lib, "server" + File.separator + "libjvm.so");
+            if (libjvm.isFile())
+            {
+                return libjvm;
+            }
+            File[] archDirs = lib.listFiles();
+            if (null != archDirs)
+            {
+                for (File archDir : archDirs)
+                {
+                    libjvm = new File(archDir, "server" + File.separator + "libjvm.so");
+                    if (libjvm.isFile())
+                    {
+                        return libjvm;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determines the jdk home of a tool living in its bin directory, symbolic links are resolved first
+     * @param tool path to a jdk tool e.g. /opt/shared/java/jdk1.6/bin/javac
+     * @return the jdk home or null if the tool is not within a bin directory
+     */
+    protected File getJdkHome(String tool)
+    {
+        if (null == tool)
+        {
+            return null;
+        }
+        File toolFile = new File(tool);
+        try
+        {
+            toolFile = toolFile.getCanonicalFile();
+        }
+        catch (IOException e)
+        {
+            toolFile = toolFile.getAbsoluteFile();
+        }
+        File binDir = toolFile.getParentFile();
+        if (null == binDir || !"bin".equals(binDir.getName()))
+        {
+            return null;
+        }
+        return binDir.getParentFile();
+    }
+
+    /**
+     * @return a message if the ct.sym of the jdk holds no data for the release, null if it does or can not be read
+     */
+    protected String checkReleaseData(File jdkHome, String release, Log log)
+    {
+        if (null == jdkHome)
+        {
+            return null;
+        }
+        Set<Integer> releases;
+        try
+        {
+            releases = CtSymReleases.getReleases(jdkHome);
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to read the releases of " + jdkHome, e);
+            return null;
+        }
+        if (releases.isEmpty() || releases.contains(Integer.valueOf(CompilerLevels.parseFeature(release))))
+        {
+            return null;
+        }
+        return "release " + release + " is not in the lib/ct.sym of the jdk at " + jdkHome + ", which provides releases " + releases;
+    }
+
+    /**
+     * @return the project the rule runs for
+     */
+    protected MavenProject getProject(EnforcerRuleHelper helper) throws EnforcerRuleException
+    {
+        try
+        {
+            return (MavenProject) helper.evaluate("${project}");
+        }
+        catch (ExpressionEvaluationException e)
+        {
+            throw new EnforcerRuleException("Unable to retrieve the project", e);
+        }
+    }
+
+    /**
+     * @return the setting from the default-compile execution, the plugin configuration or the maven.compiler
+     * property, in that order, or null if it is not set
+     */
+    protected String getCompilerSetting(MavenProject project, String name)
+    {
+        String value = null;
+        for (Object candidate : project.getBuildPlugins())
+        {
+            Plugin plugin = (Plugin) candidate;
+            if (!"maven-compiler-plugin".equals(plugin.getArtifactId()))
+            {
+                continue;
+            }
+            value = getChildValue(plugin.getConfiguration(), name);
+            for (Object execution : plugin.getExecutions())
+            {
+                if ("default-compile".equals(((PluginExecution) execution).getId()))
+                {
+                    String executionValue = getChildValue(((PluginExecution) execution).getConfiguration(), name);
+                    value = null != executionValue ? executionValue : value;
+                }
+            }
+        }
+        if (null == value && null != project.getProperties())
+        {
+            value = StringUtils.trim(project.getProperties().getProperty("maven.compiler." + name));
+        }
+        return StringUtils.isEmpty(value) || -1 != value.indexOf("${") ? null : value;
+    }
+
+    private static String getChildValue(Object configuration, String name)
+    {
+        if (!(configuration instanceof Xpp3Dom))
+        {
+            return null;
+        }
+        Xpp3Dom child = ((Xpp3Dom) configuration).getChild(name);
+        return null == child ? null : StringUtils.trim(child.getValue());
+    }
+
+	/**
+	* Converts a jdk string from 1.5.0-11b12 to a single 3 digitversion like 1.5.0-11
+	*
+	* @param theJdkVersion to be converted.
+	* @return the converted string.
+	*/
+    protected String normalizeJDKVersion( String theJdkVersion ) {
+	    theJdkVersion = theJdkVersion.replaceAll( "_|-", "." );
+	    String tokenArray[] = StringUtils.split( theJdkVersion, "." );
+	    List<String> tokens = Arrays.asList( tokenArray );
+	    StringBuffer buffer = new StringBuffer( theJdkVersion.length());
+	    Iterator<String> iter = tokens.iterator();
+	    
+		for ( int i = 0; i < tokens.size() && i < 4; i++ ) {
+	        String section = iter.next();
+	        section = section.replaceAll( "[^0-9]", "" );
+	        if ( StringUtils.isNotEmpty( section ) ) {
+	            buffer.append( Integer.parseInt( section ) );
+	            if ( i != 2 ) {
+	                buffer.append( '.' );
+	            } else {
+	                buffer.append( '-' );
+	            }
+	       }
+	    }
+	
+	    String version = buffer.toString();
+	    version = StringUtils.stripEnd( version, "-" );
+	    return StringUtils.stripEnd( version, "." );
+    }
+
+    protected File getOutputDirectory()
+    {
+        return outputDirectory;
+    }
+
+    protected File getBaseDirectory()
+    {
+        return basedir;
+    }
+
+    protected File getBuildDirectory()
+    {
+        return buildDirectory;
+    }
+
+    protected File getCacheDirectory()
+    {
+        if (null == cacheDirectory)
+        {
+            return new File(System.getProperty("user.home"), ".m2" + File.separator + "enforcer-toolchain-rules");
+        }
+        return cacheDirectory;
+    }
+
+    protected void setCacheDirectory(File cacheDirectory)
+    {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    protected void setCheckArchitecture(boolean checkArchitecture)
+    {
+        this.checkArchitecture = checkArchitecture;
+    }
+
+    private static final String LS = System.getProperty( "line.separator" );
+
+    /**
+     * Long message will contain all the errors form running the compiler
+     * @param messages
+     * @return the long or full error message
+     */
+    protected String longMessage( List<CompilerError> messages )
+    {
+        StringBuilder sb = new StringBuilder();
+
+        if ( messages != null )
+        {
+            for ( CompilerError compilerError : messages )
+            {
+                sb.append( compilerError ).append( LS );
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Short message will have the error message if there's only one, useful for errors forking the compiler
+     *
+     * @param messages
+     * @return the short error message 
+     */
+    protected String shortMessage( List<CompilerError> messages )
+    {
+        StringBuffer sb = new StringBuffer();
+
+        sb.append( "Compilation failure" );
+
+        if ( messages.size() == 1 )
+        {
+            sb.append( LS );
+
+            CompilerError compilerError = messages.get( 0 );
+
+            sb.append( compilerError ).append( LS );
+        }
+
+        return sb.toString();
+    }
+
+    protected String getExecutableExtension()
+    {
+    	return ( Os.isFamily( Os.FAMILY_WINDOWS ) ? ".exe" : "" );
+    }
+
+    protected MavenSession getSession()
+    {
+    	return session;
+    }
+
+    /**
+     * Determines a path to a tool based on environment variables and subdirectory searches
+     * @param tool
+     * @param log
+     * @param sysProperty
+     * @param subDirs1
+     * @param envArgs
+     * @param subDirs2
+     * @return The path to a tool or null if one is not found
+     */
+    protected String findToolExecutable(String tool, Log log, String sysProperty, String[] subDirs1, String [] envArgs, String [] subDirs2)
+    {
+    	log.warn("Falling back to env lookup for specified tool");
+
+        String command = tool;
+        try {
+            Properties env = new Properties();
+            env.putAll(getSession().getSystemProperties());
+            env.putAll(getSession().getUserProperties());
+            int envLen = null != env ? envArgs.length : 0;
+        	command = findExecutable( tool, env.getProperty( sysProperty ), subDirs1 );
+	
+	        if ( command == null )
+	        {
+	            if (null != envArgs)
+	            {
+	                for ( int i = 0; i < envLen && executable == null; i++ )
+	                {
+	                	command =
+	                        findExecutable( tool, env.getProperty( envArgs[i] ), subDirs2 );
+	                	if (command != null) {
+	                		break;
+	                	}
+	                }
+	            }
+	        }
+	        log.warn("Using executable: " + command);    
+        }
+        catch (IOException e) {
+        	log.error("Unable to find executable", e);
+        }
+        
+        return command;
+    }
+
+    /**
+     * Attempt to locate a specified command line tool
+     * @param command
+     * @param homeDir
+     * @param subDirs
+     * @return
+     * @throws IOException if a valid path to the specified command can not be determined or null if no tool found
+     */
+    protected String findExecutable( String command, String homeDir, String[] subDirs ) throws IOException
+    {
+        if ( StringUtils.isNotEmpty( homeDir ) )
+        {
+            for ( int i = 0; i < subDirs.length; i++ )
+            {
+                File file = new File( new File( homeDir, subDirs[i] ), command );
+
+                if ( file.isFile() && file.exists())
+                {
+                    return new File(file.getAbsolutePath()).getCanonicalPath();
+                }
+            }
+        }
+
+        return null;
+    }
+
+	protected ToolchainManager getToolchainManager() {
+		return toolchainManager;
+	}
+
+	protected String getExecutable() {
+		return executable;
+	}
+
+	protected File getBasedir() {
+		return basedir;
+	}
+
+    /**
+     * Construct a new see {ToolchainManager}
+     * @param type the toolchain type
+     * @param log a logger
+     * @param project the maven project
+     * @return ToolchainManager or null
+     * @throws MogoExecutionException
+     *
+    private ToolchainManager createToolChainManager(String type, Log log, MavenProject project)
+    {
+    	//this breaks later with a life-cycle exception
+    	File toolchainsFile = null;
+    	try {
+    		//Maven 3.0-betaX?
+    	    MavenExecutionRequest req = session.getRequest();
+    	    toolchainsFile = req.getUserToolchainsFile();
+    	} catch (Exception e)
+    	{
+    		//ignore and try to support older clients
+    	}
+    	if (null != toolchainsFile && !toolchainsFile.exists())
+    	{
+	        toolchainsFile = new File( new File( System.getProperty("user.home" ), ".m2" ), "toolchains.xml" );
+	    }
+	    //todo specified toolchains rather than user default
+	    if ( !toolchainsFile.exists() )
+	    {
+  	      throw new MojoExecutionException("No toolchains.xml file found at " + toolchainsFile);
+	    }
+	
+	    PersistedToolchains toolchainModels = null;
+	    Reader in = null;
+	    try
+	    {
+	        in = ReaderFactory.newXmlReader( toolchainsFile );
+	        toolchainModels = new MavenToolchainsXpp3Reader().read( in);
+	    }
+	    catch ( Exception e )
+	    {
+	        throw new MojoExecutionException("Malformed toolchains.xml", e );
+	    }
+	    finally
+	    {
+	        IOUtil.close( in );
+	    }
+	
+	    List<ToolchainModel> toolChains = toolchainModels.getToolchains();
+	    if (null != toolChains)
+	    {
+	        for (ToolchainModel tcModel : toolChains)
+	        {
+	            if (type.equals(tcModel.getType()))
+	            {
+	                log.info("Found ToolChain Model: " + tcModel );
+	                tc = new DefaultJavaToolChain(tcModel, null);
+	                break;
+	            }
+	        }
+	    }
+    }*/
+
+}
@@ -0,0 +1,65 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+/**
+ * A jdk of a toolchain matrix, the toolchain requirements selecting it from toolchains.xml and the version range
+ * it has to satisfy, e.g.
+ * <pre>
+ * &lt;jdkRequirement&gt;
+ *     &lt;requirements&gt;&lt;version&gt;11&lt;/version&gt;&lt;/requirements&gt;
+ *     &lt;range&gt;[11.0.20,12)&lt;/range&gt;
+ * &lt;/jdkRequirement&gt;
+ * </pre>
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: JdkRequirement.java $
+ */
+public class JdkRequirement {
+    private Map<String, String> requirements;
+
+    private String range;
+
+    public Map<String, String> getRequirements()
+    {
+        return requirements;
+    }
+
+    public void setRequirements(Map<String, String> requirements)
+    {
+        this.requirements = requirements;
+    }
+
+    public String getRange()
+    {
+        return range;
+    }
+
+    public void setRange(String range)
+    {
+        this.range = range;
+    }
+
+    public String toString()
+    {
+        return "jdk " + requirements;
+    }
+}
@@ -0,0 +1,453 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+import com.github.paulmoloney.maven.plugins.utils.ClassFile;
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+import com.github.paulmoloney.maven.plugins.utils.SignatureIndex;
+import com.github.paulmoloney.maven.plugins.utils.ZipDirectory;
+
+/** This rule checks that the compiled classes only use classes, fields and methods present in the toolchain jdk,
+ * against a signature index of the jdk built once and cached per jdk.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleApiSignaturesToolchainAware.java $
+ */
+public class RuleApiSignaturesToolchainAware extends AbstractToolChainAwareRule {
+    private static final int MAX_REPORTED = 100;
+
+    private static final String LS = System.getProperty( "line.separator" );
+
+    /**
+     * Opened indexes per jdk class library fingerprint, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<FileFingerprint, SignatureIndex> INDEXES = new ConcurrentHashMap<FileFingerprint, SignatureIndex>();
+
+    /**
+     * Internal name prefixes of the packages only a jdk provides, unless the compile classpath does
+     */
+    private static final String[] PLATFORM_PREFIXES = { "java/", "javax/", "jdk/", "sun/", "com/sun/" };
+
+    /**
+     * Internal name prefixes of classes not to check, e.g. sun/misc/
+     */
+    @Parameter
+    private List<String> ignores;
+
+    /**
+     * Number of threads scanning classes, defaults to the number of processors
+     */
+    @Parameter
+    private int threads;
+
+    /**
+     * If a suitable jdk from toolchains.xml can not be found, then try to match based on typical environmental variables
+     */
+    @Parameter (defaultValue = "true")
+    private boolean isFallBackAllowed = true;
+
+	/**
+	* Scans the compiled classes for references the toolchain jdk can not resolve
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        try
+        {
+            initEnvironment(helper);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        final Log log = helper.getLog();
+
+        List<File> classes = new ArrayList<File>();
+        try
+        {
+            if (getOutputDirectory().isDirectory())
+            {
+                for (Object file : FileUtils.getFiles(getOutputDirectory(), "**/*.class", "**/module-info.class"))
+                {
+                    classes.add((File) file);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to list classes in " + getOutputDirectory(), e);
+        }
+        if (classes.isEmpty())
+        {
+            log.debug("No classes to check in " + getOutputDirectory());
+            return;
+        }
+
+        executable = findJdkTool("javac", helper, log, isFallBackAllowed);
+        File jdkHome = getJdkHome(executable);
+        if (null == jdkHome)
+        {
+            throw new EnforcerRuleException("No valid jdk found, aborting");
+        }
+        SignatureIndex index = getIndex(jdkHome, log);
+        Classpath classpath = new Classpath(getCompileClasspath(helper), log);
+
+        Set<String> problems = scan(classes, index, classpath);
+        if (!problems.isEmpty())
+        {
+            StringBuilder message = new StringBuilder();
+            message.append("Found ").append(problems.size()).append(" references to apis missing from the jdk at ")
+                .append(jdkHome).append(':');
+            int reported = 0;
+            for (String problem : problems)
+            {
+                if (reported++ == MAX_REPORTED)
+                {
+                    message.append(LS).append("  ...");
+                    break;
+                }
+                message.append(LS).append("  ").append(problem);
+            }
+            throw new EnforcerRuleException(message.toString());
+        }
+        log.debug("Checked " + classes.size() + " classes against " + index.size() + " signatures of " + jdkHome);
+    }
+
+    /**
+     * Opens the cached index of the jdk class library, building it on first use
+     */
+    private SignatureIndex getIndex(File jdkHome, Log log) throws EnforcerRuleException
+    {
+        File library = new File(jdkHome, "lib" + File.separator + "modules");
+        if (!library.isFile())
+        {
+            library = new File(jdkHome, "jre" + File.separator + "lib" + File.separator + "rt.jar");
+        }
+        if (!library.isFile())
+        {
+            library = new File(jdkHome, "lib" + File.separator + "rt.jar");
+        }
+        FileFingerprint fingerprint = FileFingerprint.of(library);
+        if (null == fingerprint)
+        {
+            throw new EnforcerRuleException("No class library (lib/modules or rt.jar) found in the jdk at " + jdkHome);
+        }
+        SignatureIndex index = INDEXES.get(fingerprint);
+        if (null != index)
+        {
+            return index;
+        }
+        synchronized (INDEXES)
+        {
+            index = INDEXES.get(fingerprint);
+            if (null != index)
+            {
+                return index;
+            }
+            File indexFile = new File(getCacheDirectory(), "signatures" + File.separator + fingerprint.toDigest() + ".idx");
+            try
+            {
+                if (indexFile.isFile())
+                {
+                    try
+                    {
+                        index = SignatureIndex.open(indexFile);
+                    }
+                    catch (IOException e)
+                    {
+                        log.debug("Rebuilding unreadable signature index " + indexFile, e);
+                    }
+                }
+                if (null == index)
+                {
+                    long start = System.currentTimeMillis();
+                    index = SignatureIndex.build(jdkHome, indexFile);
+                    log.info("Indexed " + index.size() + " signatures of " + jdkHome + " in "
+                        + (System.currentTimeMillis() - start) + "ms");
+                }
+            }
+            catch (IOException e)
+            {
+                throw new EnforcerRuleException("Unable to index the jdk at " + jdkHome, e);
+            }
+            INDEXES.put(fingerprint, index);
+            return index;
+        }
+    }
+
+    /**
+     * @return the compile classpath of the project, empty if there is no project
+     */
+    private List<String> getCompileClasspath(EnforcerRuleHelper helper) throws EnforcerRuleException
+    {
+        MavenProject project = getProject(helper);
+        if (null == project)
+        {
+            return Collections.emptyList();
+        }
+        try
+        {
+            return project.getCompileClasspathElements();
+        }
+        catch (DependencyResolutionRequiredException e)
+        {
+            throw new EnforcerRuleException("Unable to resolve the compile classpath", e);
+        }
+    }
+
+    private Set<String> scan(List<File> classes, final SignatureIndex index, final Classpath classpath) throws EnforcerRuleException
+    {
+        final ConcurrentMap<String, Boolean> resolved = new ConcurrentHashMap<String, Boolean>();
+        List<Callable<Collection<String>>> tasks = new ArrayList<Callable<Collection<String>>>();
+        for (final File classFile : classes)
+        {
+            tasks.add(new Callable<Collection<String>>() {
+                public Collection<String> call() throws IOException
+                {
+                    return check(ClassFile.parse(classFile), index, classpath, resolved);
+                }
+            });
+        }
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, classes.size())));
+        try
+        {
+            Set<String> problems = new TreeSet<String>();
+            for (Future<Collection<String>> result : pool.invokeAll(tasks))
+            {
+                problems.addAll(result.get());
+            }
+            return problems;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new EnforcerRuleException("Interrupted while checking classes", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new EnforcerRuleException("Unable to check classes", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    private Collection<String> check(ClassFile classFile, SignatureIndex index, Classpath classpath,
+        ConcurrentMap<String, Boolean> resolved) throws IOException
+    {
+        List<String> problems = new ArrayList<String>();
+        String referrer = classFile.getClassName().replace('/', '.');
+        for (String owner : classFile.getReferencedClasses())
+        {
+            if (isChecked(owner, index) && !index.containsClass(owner) && !classpath.contains(owner))
+            {
+                problems.add(referrer + " -> " + owner.replace('/', '.'));
+            }
+        }
+        for (ClassFile.Member member : classFile.getReferencedMembers())
+        {
+            String owner = member.getOwner();
+            if (owner.startsWith("[") || !isChecked(owner, index) || !index.containsClass(owner))
+            {
+                // array members always exist, missing classes are reported above and the members of classes from
+                // the classpath are not known
+                continue;
+            }
+            String key = owner + '#' + member.getName() + member.getDescriptor();
+            Boolean found = resolved.get(key);
+            if (null == found)
+            {
+                found = Boolean.valueOf(resolve(owner, member, index));
+                resolved.put(key, found);
+            }
+            if (!found.booleanValue())
+            {
+                problems.add(referrer + " -> " + owner.replace('/', '.') + '.' + member.getName()
+                    + (member.isMethod() ? "" : ":") + member.getDescriptor());
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Looks for the member in the class and then its supertypes, as the jvm does when linking
+     */
+    private boolean resolve(String owner, ClassFile.Member member, SignatureIndex index)
+    {
+        if (index.containsMember(owner, member.getName(), member.getDescriptor()))
+        {
+            return true;
+        }
+        if (member.isMethod() && ("java/lang/invoke/MethodHandle".equals(owner) || "java/lang/invoke/VarHandle".equals(owner))
+            && index.containsMethodNamed(owner, member.getName()))
+        {
+            // signature polymorphic methods are called with the descriptor of the call site
+            return true;
+        }
+        for (String supertype : index.getSupertypes(owner))
+        {
+            if (resolve(supertype, member, index))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Only classes of packages the jdk provides and of the packages only a jdk provides are checked, the latter unless
+     * found on the compile classpath
+     */
+    private boolean isChecked(String owner, SignatureIndex index)
+    {
+        if (null != ignores)
+        {
+            for (String ignore : ignores)
+            {
+                if (owner.startsWith(ignore))
+                {
+                    return false;
+                }
+            }
+        }
+        int packageEnd = owner.lastIndexOf('/');
+        if (packageEnd <= 0)
+        {
+            return false;
+        }
+        for (String prefix : PLATFORM_PREFIXES)
+        {
+            if (owner.startsWith(prefix))
+            {
+                return true;
+            }
+        }
+        return index.containsPackage(owner.substring(0, packageEnd));
+    }
+
+    /**
+     * The directories and jars of the compile classpath, jar directories are read on first use and only for classes
+     * the jdk lacks
+     */
+    private static final class Classpath
+    {
+        private final List<File> elements = new ArrayList<File>();
+
+        private final Map<File, ZipDirectory> jars = new HashMap<File, ZipDirectory>();
+
+        private final ConcurrentMap<String, Boolean> found = new ConcurrentHashMap<String, Boolean>();
+
+        private final Log log;
+
+        Classpath(List<String> elements, Log log)
+        {
+            for (String element : elements)
+            {
+                this.elements.add(new File(element));
+            }
+            this.log = log;
+        }
+
+        boolean contains(String owner)
+        {
+            Boolean result = found.get(owner);
+            if (null == result)
+            {
+                result = Boolean.valueOf(find(owner + ".class"));
+                found.put(owner, result);
+            }
+            return result.booleanValue();
+        }
+
+        private boolean find(String path)
+        {
+            for (File element : elements)
+            {
+                if (element.isDirectory() ? new File(element, path).isFile() : containsEntry(element, path))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized boolean containsEntry(File jar, String path)
+        {
+            if (!jars.containsKey(jar))
+            {
+                ZipDirectory directory = null;
+                try
+                {
+                    directory = jar.isFile() ? ZipDirectory.open(jar) : null;
+                }
+                catch (IOException e)
+                {
+                    log.debug("Unable to list the classes of " + jar, e);
+                }
+                jars.put(jar, directory);
+            }
+            ZipDirectory directory = jars.get(jar);
+            return null != directory && directory.contains(path);
+        }
+    }
+
+    protected void setIgnores(List<String> ignores)
+    {
+        this.ignores = ignores;
+    }
+
+    protected void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    protected void setFallback(boolean isFallBackAllowed)
+    {
+        this.isFallBackAllowed = isFallBackAllowed;
+    }
+}
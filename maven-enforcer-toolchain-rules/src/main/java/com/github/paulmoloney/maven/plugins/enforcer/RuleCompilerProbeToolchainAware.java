@@ -0,0 +1,337 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.compiler.Compiler;
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerError;
+import org.codehaus.plexus.compiler.CompilerException;
+import org.codehaus.plexus.compiler.manager.CompilerManager;
+import org.codehaus.plexus.compiler.manager.NoSuchCompilerException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+
+/** This rule compiles a tiny generated source with the toolchain compiler and the project's source, target and
+ * release levels, so unsupported levels are reported at validate time rather than by the compiler plugin.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleCompilerProbeToolchainAware.java $
+ */
+public class RuleCompilerProbeToolchainAware extends AbstractToolChainAwareRule {
+    private static final String PROBE_CLASS = "EnforcerToolchainProbe";
+
+    private static final String PASSED = "";
+
+    /**
+     * Probe outcomes keyed by compiler fingerprint and flags, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<String, String> PROBE_RESULTS = new ConcurrentHashMap<String, String>();
+
+    @Parameter( property = "maven.compiler.compilerId", defaultValue = "javac" )
+    private String compilerId;
+
+    @Parameter( property = "maven.compiler.source" )
+    private String source;
+
+    @Parameter( property = "maven.compiler.target" )
+    private String target;
+
+    @Parameter( property = "maven.compiler.release" )
+    private String release;
+
+    /**
+     * If a suitable compiler from toolchains.xml can not be found, then try to match based on typical environmental variables
+     */
+    @Parameter (defaultValue = "true")
+    private boolean isFallBackAllowed = true;
+
+	/**
+	* Compiles a probe source with the toolchain compiler using the configured source, target and release levels
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        CompilerManager compilerManager;
+        try
+        {
+            initEnvironment(helper);
+            compilerManager = (CompilerManager) helper.getComponent(CompilerManager.class);
+            MavenProject project = getProject(helper);
+            source = getLevel(helper, project, source, "source");
+            target = getLevel(helper, project, target, "target");
+            release = getLevel(helper, project, release, "release");
+        }
+        catch (ComponentLookupException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        if (null == compilerId || "".equals(compilerId.trim()))
+        {
+            compilerId = "javac";
+        }
+        final Log log = helper.getLog();
+
+        Compiler compiler;
+        try
+        {
+            compiler = compilerManager.getCompiler( compilerId );
+        }
+        catch ( NoSuchCompilerException e )
+        {
+            throw new EnforcerRuleException( "No compiler with id: '" + e.getCompilerId() + "'." );
+        }
+
+        executable = findJdkTool(compilerId, helper, log, isFallBackAllowed);
+        if (null == executable || "".equals(executable.trim()))
+        {
+            throw new EnforcerRuleException("No valid executable found, aborting");
+        }
+
+        if (isSet(release) && "javac".equals(compilerId))
+        {
+            // a release missing from ct.sym needs no compiler run to be refused
+            String missing = checkReleaseData(getJdkHome(executable), release, log);
+            if (null != missing)
+            {
+                throw new EnforcerRuleException("Compiler " + executable + " does not support --release " + release + ": " + missing);
+            }
+        }
+
+        String flags = describeFlags();
+        FileFingerprint fingerprint = FileFingerprint.of(new File(executable));
+        // an executable that can not be fingerprinted is probed every time rather than sharing a key
+        String key = null == fingerprint ? null : fingerprint.toString() + '|' + compilerId + '|' + flags;
+        String failure = null == key ? null : PROBE_RESULTS.get(key);
+        if (null == failure)
+        {
+            failure = probe(compiler, log);
+            if (null != key)
+            {
+                PROBE_RESULTS.put(key, failure);
+            }
+        }
+        else
+        {
+            log.debug("Reusing compiler probe result for " + executable + " with " + flags);
+        }
+        if (!PASSED.equals(failure))
+        {
+            throw new EnforcerRuleException("Compiler " + executable + " does not support " + flags + ": " + failure);
+        }
+        log.debug("Compiler " + executable + " supports " + flags);
+    }
+
+    /**
+     * Compiles the probe source in a scratch directory
+     * @param compiler to run
+     * @param log
+     * @return the failure message or {@link #PASSED}
+     * @throws EnforcerRuleException if the probe source can not be written or the compiler can not be run, neither
+     * of which is cached
+     */
+    private String probe(Compiler compiler, Log log) throws EnforcerRuleException
+    {
+        File workDir = null;
+        try
+        {
+            workDir = File.createTempFile("enforcer-probe", "");
+            if (!workDir.delete() || !workDir.mkdirs())
+            {
+                throw new EnforcerRuleException("Unable to create probe directory " + workDir);
+            }
+            File sourceDir = new File(workDir, "src");
+            File outputDir = new File(workDir, "classes");
+            sourceDir.mkdirs();
+            outputDir.mkdirs();
+            File sourceFile = new File(sourceDir, PROBE_CLASS + ".java");
+            writeProbeSource(sourceFile);
+
+            CompilerConfiguration config = new CompilerConfiguration();
+            config.setOutputLocation(outputDir.getAbsolutePath());
+            config.addSourceLocation(sourceDir.getAbsolutePath());
+            config.setSourceFiles(Collections.singleton(sourceFile));
+            config.setFork(true);
+            config.setExecutable(executable);
+            config.setWorkingDirectory(workDir);
+            if (isSet(release))
+            {
+                config.addCompilerCustomArgument("--release", release);
+            }
+            else
+            {
+                if (isSet(source))
+                {
+                    config.setSourceVersion(source);
+                }
+                if (isSet(target))
+                {
+                    config.setTargetVersion(target);
+                }
+            }
+
+            List<CompilerError> messages = compiler.compile(config);
+            List<CompilerError> errors = new ArrayList<CompilerError>();
+            if (null != messages)
+            {
+                for (CompilerError message : messages)
+                {
+                    if (message.isError())
+                    {
+                        errors.add(message);
+                    }
+                }
+                log.debug(longMessage(messages));
+            }
+            return errors.isEmpty() ? PASSED : shortMessage(errors);
+        }
+        catch (CompilerException e)
+        {
+            throw new EnforcerRuleException("Unable to run compiler probe with " + executable, e);
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to write compiler probe", e);
+        }
+        finally
+        {
+            if (null != workDir)
+            {
+                try
+                {
+                    FileUtils.deleteDirectory(workDir);
+                }
+                catch (IOException e)
+                {
+                    log.debug("Unable to remove " + workDir, e);
+                }
+            }
+        }
+    }
+
+    private void writeProbeSource(File sourceFile) throws IOException
+    {
+        Writer writer = null;
+        try
+        {
+            writer = new OutputStreamWriter(new FileOutputStream(sourceFile), "UTF-8");
+            writer.write("public class " + PROBE_CLASS + " {}\n");
+        }
+        finally
+        {
+            IOUtil.close(writer);
+        }
+    }
+
+    private String describeFlags()
+    {
+        if (isSet(release))
+        {
+            return "--release " + release;
+        }
+        return "-source " + (isSet(source) ? source : "<default>") + " -target " + (isSet(target) ? target : "<default>");
+    }
+
+    /**
+     * @return the level configured for the rule, else for the maven-compiler-plugin as the java version rule reads it,
+     * else the maven.compiler property of the session, or null if it is not set
+     */
+    private String getLevel(EnforcerRuleHelper helper, MavenProject project, String value, String name) throws MojoExecutionException
+    {
+        if (isSet(value))
+        {
+            return value;
+        }
+        String configured = null == project ? null : getCompilerSetting(project, name);
+        return null != configured ? configured : evaluate(helper, "${maven.compiler." + name + "}");
+    }
+
+    private String evaluate(EnforcerRuleHelper helper, String expression) throws MojoExecutionException
+    {
+        try
+        {
+            Object evaluated = helper.evaluate(expression);
+            if (evaluated instanceof String && isSet((String) evaluated) && -1 == ((String) evaluated).indexOf("${"))
+            {
+                return (String) evaluated;
+            }
+            return null;
+        }
+        catch (ExpressionEvaluationException e)
+        {
+            throw new MojoExecutionException("Unable to evaluate " + expression, e);
+        }
+    }
+
+    private static boolean isSet(String value)
+    {
+        return null != value && !"".equals(value.trim());
+    }
+
+    protected void setCompilerId(String compilerId)
+    {
+        if (null == compilerId || "".equals(compilerId.trim())) {
+            throw new IllegalArgumentException("CompilerId cannot be null or empty");
+        }
+        this.compilerId = compilerId;
+    }
+
+    protected void setSource(String source)
+    {
+        this.source = source;
+    }
+
+    protected void setTarget(String target)
+    {
+        this.target = target;
+    }
+
+    protected void setRelease(String release)
+    {
+        this.release = release;
+    }
+
+    protected void setFallback(boolean isFallBackAllowed)
+    {
+        this.isFallBackAllowed = isFallBackAllowed;
+    }
+}
@@ -0,0 +1,552 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.maven.artifact.versioning.ArtifactVersion;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.compiler.Compiler;
+import org.codehaus.plexus.compiler.manager.CompilerManager;
+import org.codehaus.plexus.compiler.manager.NoSuchCompilerException;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.codehaus.plexus.util.StringUtils;
+
+import com.github.paulmoloney.maven.plugins.utils.CompilerLevels;
+import com.github.paulmoloney.maven.plugins.utils.CompilerVersionDetector;
+import com.github.paulmoloney.maven.plugins.utils.CompilerVersionDetectors;
+import com.github.paulmoloney.maven.plugins.utils.DefaultProcessExecutor;
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+import com.github.paulmoloney.maven.plugins.utils.JdkReleaseFile;
+import com.github.paulmoloney.maven.plugins.utils.ProbeJvmProfile;
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutor;
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutorException;
+import com.github.paulmoloney.maven.plugins.utils.VerificationStamp;
+
+/** This rule checks that the Java compiler version matched in toolchains.xml is allowed.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleJavaVersionToolchainAware.java $
+ */
+public class RuleJavaVersionToolchainAware extends AbstractToolChainAwareRule {
+    private static final String LS = System.getProperty( "line.separator" );
+
+    private static final String PROPERTY_PREFIX = "toolchain.jdk.";
+
+    @Parameter( property = "maven.compiler.compilerId", defaultValue = "javac" )
+    private String compilerId;
+
+    /*
+     * From plexus
+     */
+    private CompilerManager compilerManager;
+
+    @Parameter(property = "maven.compiler.compilerArgument", defaultValue = "-version" )
+    private String compilerArgument;
+
+    /**
+     * If a suitable compiler from toolchains.xml can not be found, then try to match based on typical environmental variables
+     */
+    @Parameter (defaultValue = "true")
+    private boolean isFallBackAllowed;
+
+    /**
+     * Run javac with jvm options that reduce its startup time when its version can not be read from the jdk's
+     * release file, which is only the case for jdks before 7
+     */
+    @Parameter (property = "enforcer.toolchain.probeProfile", defaultValue = "false")
+    private boolean probeProfile;
+
+    /**
+     * Also check the source, target and release of the maven-compiler-plugin against the detected jdk version
+     */
+    @Parameter (defaultValue = "false")
+    private boolean checkCompilerConfiguration;
+
+    /**
+     * Publish the executable, jdk home, version, major, minor and feature versions and fingerprint as
+     * toolchain.jdk.* project properties
+     */
+    @Parameter (defaultValue = "false")
+    private boolean publishProperties;
+
+    /**
+     * Regular expression the IMPLEMENTOR of the toolchain jdk's release file must match e.g. Eclipse Adoptium
+     */
+    @Parameter
+    private String implementor;
+
+    /**
+     * Regular expression the IMPLEMENTOR_VERSION of the toolchain jdk's release file must match e.g. Temurin-.*
+     */
+    @Parameter
+    private String implementorVersion;
+
+    /**
+     * Regular expression the JAVA_RUNTIME_VERSION of the toolchain jdk's release file must match e.g. 17\.0\.9\+9
+     */
+    @Parameter
+    private String runtimeVersion;
+
+    /**
+     * Regular expression the JVM_VARIANT of the toolchain jdk's release file must match e.g. Hotspot
+     */
+    @Parameter
+    private String jvmVariant;
+
+    private ProcessExecutor process;
+    
+	/** 
+	* This particular rule determines if the specified Java compiler version referenced in the toolchains.xml is an appropriate version
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+    	try
+    	{
+    	    super.init(helper);
+    	    if (null == compilerId || "".equals(compilerId))
+    	    {
+    	    	compilerId = "javac";
+    	    }
+    	    if (null == compilerArgument || "".equals(compilerArgument))
+    	    {
+    	    	compilerArgument = "-version";
+    	    }
+    	    /*try
+    	    {
+    	        compilerId = (String) helper.evaluate("maven.compiler.compilerId");
+    	    }
+    	    catch (ExpressionEvaluationException e)
+    	    {
+    	        throw new MojoExecutionException ("Unable to determine compiler id", e);
+    	    }*/
+    	}
+    	catch (MojoExecutionException e)
+    	{
+    		throw new EnforcerRuleException("Error initialising mojo", e);
+    	}
+	    String java_version;
+	    final Log log = helper.getLog();
+
+        log.debug( "Using compiler id'" + getCompilerId() + "'." );
+
+        // javac is always available, the compiler components are only loaded for the other compilers
+        Compiler compiler = "javac".equals(getCompilerId()) ? null : getCompiler(helper);
+
+        executable = findJdkTool(getCompilerId(), helper, log, isFallBackAllowed());
+
+        CompilerVersionDetector detector = CompilerVersionDetectors.forCompilerId(getCompilerId());
+        File versionSource = null;
+        if (null != detector)
+        {
+            versionSource = detector.locate(null == executable || "".equals(executable.trim()) ? null : new File(executable),
+                null == compiler ? null : compiler.getClass().getClassLoader());
+        }
+        if (null == versionSource && (null == executable || "".equals(executable.trim())))
+        {
+            throw new EnforcerRuleException("No valid executable found, aborting");
+        }
+        checkImplementation(log);
+
+        FileFingerprint fingerprint = FileFingerprint.of(null != versionSource ? versionSource : new File(executable));
+        File stampFile = getStampFile();
+        if (null != fingerprint && null != stampFile)
+        {
+            VerificationStamp stamp = VerificationStamp.read(stampFile);
+            if (null != stamp && stamp.matches(fingerprint.toString(), getVersion()))
+            {
+                log.debug("Unchanged " + fingerprint.getPath() + " already verified, see " + stampFile);
+                if (!stamp.isPassed())
+                {
+                    throw new EnforcerRuleException(stamp.getMessage());
+                }
+                publishProperties(helper, stamp.getVersion(), fingerprint);
+                checkCompilerConfiguration(helper, stamp.getVersion(), log);
+                return;
+            }
+        }
+
+        java_version = null;
+        if (null != versionSource)
+        {
+            try
+            {
+                java_version = detector.detectVersion(versionSource);
+                log.debug(getCompilerId() + " version " + java_version + " read from " + versionSource);
+            }
+            catch (IOException e)
+            {
+                log.debug("Unable to read the " + getCompilerId() + " version from " + versionSource, e);
+            }
+        }
+        if (null == java_version)
+        {
+            if (null == executable || "".equals(executable.trim()))
+            {
+                throw new EnforcerRuleException("No version found in " + versionSource + " and no executable to run, aborting");
+            }
+            ProbeJvmProfile profile = null;
+            if (null == process && probeProfile && "javac".equals(getCompilerId()))
+            {
+                profile = new ProbeJvmProfile(getJdkHome(executable), getCompilerId(), getCacheDirectory());
+                process = new DefaultProcessExecutor().createExecutor(executable,
+                    profile.getArguments(Arrays.asList(getCompilerArgument())));
+            }
+            setProcess(process);
+            try
+            {
+                java_version = runToolAndRetrieveVersion(process, log);
+            }
+            finally
+            {
+                if (null != profile)
+                {
+                    profile.completed();
+                }
+            }
+        }
+
+	    String clean_java_version = normalizeJDKVersion( java_version );
+	    log.debug( "Normalized Java Version: " + clean_java_version );
+	
+	    ArtifactVersion detectedJdkVersion = new DefaultArtifactVersion(clean_java_version );
+	    log.debug( "Parsed Version: Major: " + detectedJdkVersion.getMajorVersion() + " Minor: "
+	        + detectedJdkVersion.getMinorVersion() + " Incremental: " + detectedJdkVersion.getIncrementalVersion()
+	        + " Build: " + detectedJdkVersion.getBuildNumber() + "Qualifier: " + detectedJdkVersion.getQualifier() );
+	
+	    log.debug("Rule requires: " + version);
+	    try
+	    {
+	        enforceVersion( log, "JDK", getVersion(), detectedJdkVersion );
+	    }
+	    catch (EnforcerRuleException e)
+	    {
+	        writeStamp(stampFile, fingerprint, false, clean_java_version, e.getMessage(), log);
+	        throw e;
+	    }
+	    writeStamp(stampFile, fingerprint, true, clean_java_version, null, log);
+	    publishProperties(helper, clean_java_version, fingerprint);
+	    checkCompilerConfiguration(helper, clean_java_version, log);
+    } 
+
+    /**
+     * Matches the configured implementor, implementor version, runtime version and jvm variant against the release
+     * file of the toolchain jdk, which is read once per build, so no process is started for them
+     */
+    private void checkImplementation(Log log) throws EnforcerRuleException
+    {
+        String[][] constraints = {
+            {JdkReleaseFile.IMPLEMENTOR, implementor},
+            {JdkReleaseFile.IMPLEMENTOR_VERSION, implementorVersion},
+            {JdkReleaseFile.JAVA_RUNTIME_VERSION, runtimeVersion},
+            {JdkReleaseFile.JVM_VARIANT, jvmVariant}};
+        JdkReleaseFile release = null;
+        StringBuilder message = new StringBuilder();
+        for (String[] constraint : constraints)
+        {
+            if (StringUtils.isEmpty(constraint[1]))
+            {
+                continue;
+            }
+            if (null == release)
+            {
+                File jdkHome = getJdkHome(executable);
+                try
+                {
+                    release = null == jdkHome ? null : JdkReleaseFile.forJdk(jdkHome);
+                }
+                catch (IOException e)
+                {
+                    throw new EnforcerRuleException("Unable to read the release file of " + jdkHome, e);
+                }
+                if (null == release)
+                {
+                    throw new EnforcerRuleException("No release file found for " + executable + " to check its "
+                        + constraint[0] + " against, aborting");
+                }
+            }
+            String value = release.get(constraint[0]);
+            log.debug(constraint[0] + " of " + release.getFile() + ": " + value);
+            try
+            {
+                if (null == value || !Pattern.matches(constraint[1], value))
+                {
+                    message.append(message.length() > 0 ? LS : "").append(constraint[0]).append(" ")
+                        .append(null == value ? "is not set" : "'" + value + "'").append(" in ").append(release.getFile())
+                        .append(" does not match ").append(constraint[1]);
+                }
+            }
+            catch (PatternSyntaxException e)
+            {
+                throw new EnforcerRuleException("Invalid " + constraint[0] + " pattern " + constraint[1], e);
+            }
+        }
+        if (message.length() > 0)
+        {
+            throw new EnforcerRuleException(message.toString());
+        }
+    }
+
+    /**
+     * Records what was detected as project properties, so later plugins and resource filtering need not run the
+     * jdk again
+     */
+    private void publishProperties(EnforcerRuleHelper helper, String jdkVersion, FileFingerprint fingerprint) throws EnforcerRuleException
+    {
+        if (!publishProperties)
+        {
+            return;
+        }
+        MavenProject project = getProject(helper);
+        if (null == project)
+        {
+            return;
+        }
+        ArtifactVersion parsed = new DefaultArtifactVersion(jdkVersion);
+        Properties properties = project.getProperties();
+        setProperty(properties, "executable", executable);
+        File jdkHome = getJdkHome(executable);
+        setProperty(properties, "home", null == jdkHome ? null : jdkHome.getPath());
+        setProperty(properties, "version", jdkVersion);
+        setProperty(properties, "major", String.valueOf(parsed.getMajorVersion()));
+        setProperty(properties, "minor", String.valueOf(parsed.getMinorVersion()));
+        setProperty(properties, "feature", String.valueOf(CompilerLevels.parseFeature(jdkVersion)));
+        setProperty(properties, "fingerprint", null == fingerprint ? null : fingerprint.toDigest());
+    }
+
+    private void setProperty(Properties properties, String name, String value)
+    {
+        if (null != value)
+        {
+            properties.setProperty(PROPERTY_PREFIX + name, value);
+        }
+    }
+
+    /**
+     * Compares the levels the maven-compiler-plugin is configured with to the detected jdk version, so a level the
+     * toolchain can not compile for fails now rather than when javac is started
+     */
+    private void checkCompilerConfiguration(EnforcerRuleHelper helper, String jdkVersion, Log log) throws EnforcerRuleException
+    {
+        if (!checkCompilerConfiguration || !"javac".equals(getCompilerId()))
+        {
+            return;
+        }
+        MavenProject project = getProject(helper);
+        if (null == project)
+        {
+            return;
+        }
+        String source = getCompilerSetting(project, "source");
+        String target = getCompilerSetting(project, "target");
+        String release = getCompilerSetting(project, "release");
+        log.debug("maven-compiler-plugin source: " + source + " target: " + target + " release: " + release);
+
+        List<String> problems = CompilerLevels.check(jdkVersion, source, target, release);
+        if (problems.isEmpty() && null != release)
+        {
+            String missing = checkReleaseData(getJdkHome(executable), release, log);
+            if (null != missing)
+            {
+                problems.add(missing);
+            }
+        }
+        if (!problems.isEmpty())
+        {
+            StringBuilder message = new StringBuilder();
+            for (String problem : problems)
+            {
+                message.append(message.length() > 0 ? LS : "").append("maven-compiler-plugin ").append(problem);
+            }
+            throw new EnforcerRuleException(message.toString());
+        }
+    }
+
+    /**
+     * @return the stamp recording the last verification of this compiler or null if there is no build directory
+     */
+    private File getStampFile()
+    {
+        if (null == getBuildDirectory())
+        {
+            return null;
+        }
+        return new File(getBuildDirectory(), "enforcer-toolchain-rules" + File.separator + "java-version-" + getCompilerId() + ".stamp");
+    }
+
+    private void writeStamp(File stampFile, FileFingerprint fingerprint, boolean passed, String detectedVersion, String message, Log log)
+    {
+        if (null == stampFile || null == fingerprint)
+        {
+            return;
+        }
+        try
+        {
+            new VerificationStamp(fingerprint.toString(), getVersion(), passed, detectedVersion, message).write(stampFile);
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to write verification stamp " + stampFile, e);
+        }
+    }
+
+    /**
+     * Runs the specified java compiler to find out its version
+     * @param process to run
+     * @param log to write to
+     * @return the version of specified executable
+     * @throws EnforcerRuleException if version can not be determined
+     */
+    private String runToolAndRetrieveVersion(ProcessExecutor process, final Log log) throws EnforcerRuleException
+    {
+        try {    	
+    	    String firstLine = process.runApplication();
+
+            String [] output = firstLine.split("\\s");
+            if (output.length > 1)
+            {
+        	    log.debug(executable + " version: " + output[1]);
+        	    return output[1];
+            }
+            throw new EnforcerRuleException("No valid version could be determined for " + process.toString());
+        }
+        catch (ProcessExecutorException e)
+        {
+        	throw new EnforcerRuleException("Error determining version", e);
+        }
+    }
+
+    /**
+     * Looks up the plexus compiler manager and the compiler, whose class loader holds the compiler's jar
+     * @throws EnforcerRuleException if there is no compiler with the id
+     */
+    private Compiler getCompiler(EnforcerRuleHelper helper) throws EnforcerRuleException
+    {
+        if (null == compilerManager)
+        {
+            try
+            {
+                compilerManager = (CompilerManager) helper.getComponent(CompilerManager.class);
+            }
+            catch (ComponentLookupException e)
+            {
+                throw new EnforcerRuleException("Unable to retrieve component", e);
+            }
+        }
+        try
+        {
+            return getCompilerManager().getCompiler( getCompilerId() );
+        }
+        catch ( NoSuchCompilerException e )
+        {
+            throw new EnforcerRuleException( "No compiler with id: '" + e.getCompilerId() + "'." );
+        }
+    }
+
+    private String getCompilerArgument()
+    {
+        return compilerArgument;
+    }
+
+    private CompilerManager getCompilerManager()
+    {
+    	return compilerManager;
+    }
+
+    private String getCompilerId()
+    {
+    	return compilerId;
+    }
+
+    private boolean isFallBackAllowed() {
+    	return isFallBackAllowed;
+    }
+    
+    protected void setCompilerId(String compilerId) {
+    	if (null == compilerId || "".equals(compilerId.trim())) {
+    		throw new IllegalArgumentException("CompilerId cannot be null or empty");
+    	}
+    	this.compilerId = compilerId;
+    }
+    
+    protected void setProcess(ProcessExecutor process)
+    {
+    	if (null != process)
+    	{
+    	    this.process = process;	
+    	}
+    	else
+    	{
+    	    this.process = new DefaultProcessExecutor().createExecutor(executable, getCompilerArgument());
+    	}
+    }
+    
+    protected void setProbeProfile(boolean probeProfile)
+    {
+    	this.probeProfile = probeProfile;
+    }
+
+    protected void setCheckCompilerConfiguration(boolean checkCompilerConfiguration)
+    {
+    	this.checkCompilerConfiguration = checkCompilerConfiguration;
+    }
+
+    protected void setPublishProperties(boolean publishProperties)
+    {
+    	this.publishProperties = publishProperties;
+    }
+
+    protected void setImplementor(String implementor)
+    {
+    	this.implementor = implementor;
+    }
+
+    protected void setImplementorVersion(String implementorVersion)
+    {
+    	this.implementorVersion = implementorVersion;
+    }
+
+    protected void setRuntimeVersion(String runtimeVersion)
+    {
+    	this.runtimeVersion = runtimeVersion;
+    }
+
+    protected void setJvmVariant(String jvmVariant)
+    {
+    	this.jvmVariant = jvmVariant;
+    }
+
+    protected void setFallback(boolean isFallBackAllowed)
+    {
+    	this.isFallBackAllowed = isFallBackAllowed;
+    }
+}
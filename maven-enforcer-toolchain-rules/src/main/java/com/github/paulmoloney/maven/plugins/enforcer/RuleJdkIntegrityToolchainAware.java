@@ -0,0 +1,389 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.plexus.util.IOUtil;
+
+import com.github.paulmoloney.maven.plugins.utils.ChecksumManifest;
+import com.github.paulmoloney.maven.plugins.utils.JdkReleaseFile;
+
+/** This rule checks the key files of the toolchain jdk against SHA-256 checksums, either a supplied manifest or
+ * a baseline recorded the first time the jdk is seen, to catch a jdk that has been partially overwritten.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleJdkIntegrityToolchainAware.java $
+ */
+public class RuleJdkIntegrityToolchainAware extends AbstractToolChainAwareRule {
+    private static final String LS = System.getProperty( "line.separator" );
+
+    /**
+     * States (jdk, manifest and the size and modification time of each file) already verified in this jvm
+     */
+    private static final Set<String> VERIFIED = Collections.synchronizedSet(new HashSet<String>());
+
+    /**
+     * A sha256sum style manifest of paths relative to the jdk home, when not set a baseline is recorded on first use
+     */
+    @Parameter
+    private File manifest;
+
+    /**
+     * Number of threads hashing files, defaults to the number of processors
+     */
+    @Parameter
+    private int threads;
+
+    /**
+     * If a suitable jdk from toolchains.xml can not be found, then try to match based on typical environmental variables
+     */
+    @Parameter (defaultValue = "true")
+    private boolean isFallBackAllowed = true;
+
+	/**
+	* Hashes the files of the toolchain jdk that changed since they were last hashed and compares them with the manifest
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        try
+        {
+            initEnvironment(helper);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        final Log log = helper.getLog();
+
+        executable = findJdkTool("javac", helper, log, isFallBackAllowed);
+        File jdkHome = getJdkHome(executable);
+        if (null == jdkHome)
+        {
+            throw new EnforcerRuleException("No valid jdk found, aborting");
+        }
+
+        File cacheDir = new File(getCacheDirectory(), "integrity");
+        String cacheName = jdkHome.getPath().replaceAll("[^A-Za-z0-9.-]", "_");
+        File baseline = new File(cacheDir, getBaselineName(jdkHome, cacheName) + ".sha256");
+        File checksumFile = null != manifest ? manifest : baseline;
+
+        SortedMap<String, String> expected = null;
+        if (checksumFile.isFile())
+        {
+            try
+            {
+                expected = ChecksumManifest.read(checksumFile);
+            }
+            catch (IOException e)
+            {
+                throw new EnforcerRuleException("Unable to read the checksum manifest " + checksumFile, e);
+            }
+        }
+        else if (null != manifest)
+        {
+            throw new EnforcerRuleException("The checksum manifest " + manifest + " does not exist");
+        }
+
+        SortedMap<String, File> files = new TreeMap<String, File>();
+        if (null != expected)
+        {
+            for (String path : expected.keySet())
+            {
+                files.put(path, new File(jdkHome, path));
+            }
+        }
+        else
+        {
+            files = getKeyFiles(jdkHome);
+        }
+
+        StringBuilder state = new StringBuilder(checksumFile.getAbsolutePath());
+        for (File file : files.values())
+        {
+            state.append('|').append(file.getPath()).append('@').append(file.length()).append(':').append(file.lastModified());
+        }
+        if (VERIFIED.contains(state.toString()))
+        {
+            log.debug("The jdk at " + jdkHome + " is unchanged since it was verified");
+            return;
+        }
+
+        File hashCache = new File(cacheDir, cacheName + ".hashes");
+        Map<String, String> actual = hash(files, hashCache, log);
+
+        if (null == expected)
+        {
+            try
+            {
+                ChecksumManifest.write(actual, baseline);
+            }
+            catch (IOException e)
+            {
+                throw new EnforcerRuleException("Unable to record the checksum baseline " + baseline, e);
+            }
+            log.info("Recorded checksums of " + actual.size() + " files of the jdk at " + jdkHome + " in " + baseline);
+            VERIFIED.add(state.toString());
+            return;
+        }
+
+        List<String> problems = new ArrayList<String>();
+        for (Map.Entry<String, String> checksum : expected.entrySet())
+        {
+            String hash = actual.get(checksum.getKey());
+            if (null == hash)
+            {
+                problems.add(checksum.getKey() + " is missing");
+            }
+            else if (!hash.equals(checksum.getValue()))
+            {
+                problems.add(checksum.getKey() + " has changed");
+            }
+        }
+        if (!problems.isEmpty())
+        {
+            StringBuilder message = new StringBuilder("The jdk at " + jdkHome + " does not match " + checksumFile + ":");
+            for (String problem : problems)
+            {
+                message.append(LS).append("  ").append(problem);
+            }
+            if (null == manifest)
+            {
+                message.append(LS).append("The checksums were recorded the first time this jdk was used, if it has been"
+                    + " legitimately updated in place delete ").append(baseline).append(" to record them again");
+            }
+            throw new EnforcerRuleException(message.toString());
+        }
+        log.debug("Verified " + actual.size() + " files of the jdk at " + jdkHome + " against " + checksumFile);
+        VERIFIED.add(state.toString());
+    }
+
+    /**
+     * @return the cache name followed by the JAVA_RUNTIME_VERSION, or JAVA_VERSION, of the jdk's release file, so
+     * updating a jdk in place records a new baseline rather than failing against the old one
+     */
+    private String getBaselineName(File jdkHome, String cacheName) throws EnforcerRuleException
+    {
+        JdkReleaseFile release;
+        try
+        {
+            release = JdkReleaseFile.forJdk(jdkHome);
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to read the release file of " + jdkHome, e);
+        }
+        String runtimeVersion = null == release ? null : release.get(JdkReleaseFile.JAVA_RUNTIME_VERSION);
+        if (null == runtimeVersion && null != release)
+        {
+            runtimeVersion = release.getJavaVersion();
+        }
+        return null == runtimeVersion ? cacheName : cacheName + "-" + runtimeVersion.replaceAll("[^A-Za-z0-9.-]", "_");
+    }
+
+    /**
+     * @return bin/*, then lib/modules on jdk 9+ or rt.jar and tools.jar on older jdks
+     */
+    private SortedMap<String, File> getKeyFiles(File jdkHome)
+    {
+        SortedMap<String, File> files = new TreeMap<String, File>();
+        File[] tools = new File(jdkHome, "bin").listFiles();
+        if (null != tools)
+        {
+            for (File tool : tools)
+            {
+                if (tool.isFile())
+                {
+                    files.put("bin/" + tool.getName(), tool);
+                }
+            }
+        }
+        String[] libraries = { "lib/modules", "jre/lib/rt.jar", "lib/rt.jar", "lib/tools.jar" };
+        for (String library : libraries)
+        {
+            File file = new File(jdkHome, library);
+            if (file.isFile())
+            {
+                files.put(library, file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Hashes the existing files whose size or modification time differ from their cached hash in parallel
+     * @return the hashes by relative path, missing files are left out
+     */
+    private Map<String, String> hash(SortedMap<String, File> files, File hashCache, Log log) throws EnforcerRuleException
+    {
+        Properties cached = loadHashes(hashCache, log);
+        Map<String, String> hashes = new TreeMap<String, String>();
+        final Map<String, Future<String>> pending = new TreeMap<String, Future<String>>();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, files.size())));
+        try
+        {
+            for (Map.Entry<String, File> entry : files.entrySet())
+            {
+                final File file = entry.getValue();
+                if (!file.isFile())
+                {
+                    continue;
+                }
+                String stat = file.length() + ":" + file.lastModified() + ":";
+                String cachedHash = cached.getProperty(entry.getKey());
+                if (null != cachedHash && cachedHash.startsWith(stat))
+                {
+                    hashes.put(entry.getKey(), cachedHash.substring(stat.length()));
+                    continue;
+                }
+                pending.put(entry.getKey(), pool.submit(new Callable<String>() {
+                    public String call() throws IOException
+                    {
+                        return ChecksumManifest.sha256(file);
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<String>> entry : pending.entrySet())
+            {
+                File file = files.get(entry.getKey());
+                String hash = entry.getValue().get();
+                hashes.put(entry.getKey(), hash);
+                cached.setProperty(entry.getKey(), file.length() + ":" + file.lastModified() + ":" + hash);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new EnforcerRuleException("Interrupted while hashing jdk files", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new EnforcerRuleException("Unable to hash jdk files", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+        if (!pending.isEmpty())
+        {
+            storeHashes(hashCache, cached, log);
+        }
+        log.debug("Hashed " + pending.size() + " of " + files.size() + " jdk files, the others were unchanged");
+        return hashes;
+    }
+
+    private Properties loadHashes(File hashCache, Log log)
+    {
+        Properties cached = new Properties();
+        if (hashCache.isFile())
+        {
+            InputStream in = null;
+            try
+            {
+                in = new FileInputStream(hashCache);
+                cached.load(in);
+            }
+            catch (IOException e)
+            {
+                log.debug("Ignoring unreadable hash cache " + hashCache, e);
+                cached.clear();
+            }
+            finally
+            {
+                IOUtil.close(in);
+            }
+        }
+        return cached;
+    }
+
+    private void storeHashes(File hashCache, Properties cached, Log log)
+    {
+        File parent = hashCache.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs())
+        {
+            log.debug("Unable to create " + parent);
+            return;
+        }
+        OutputStream out = null;
+        try
+        {
+            File temp = File.createTempFile(hashCache.getName(), ".tmp", parent);
+            out = new FileOutputStream(temp);
+            cached.store(out, "size:modified:sha256 of jdk files");
+            out.close();
+            out = null;
+            if (!temp.renameTo(hashCache))
+            {
+                hashCache.delete();
+                if (!temp.renameTo(hashCache))
+                {
+                    temp.delete();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to write hash cache " + hashCache, e);
+        }
+        finally
+        {
+            IOUtil.close(out);
+        }
+    }
+
+    protected void setManifest(File manifest)
+    {
+        this.manifest = manifest;
+    }
+
+    protected void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    protected void setFallback(boolean isFallBackAllowed)
+    {
+        this.isFallBackAllowed = isFallBackAllowed;
+    }
+}
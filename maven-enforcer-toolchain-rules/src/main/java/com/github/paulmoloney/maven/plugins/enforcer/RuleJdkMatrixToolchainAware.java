@@ -0,0 +1,499 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.artifact.versioning.InvalidVersionSpecificationException;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.toolchain.model.PersistedToolchains;
+import org.apache.maven.toolchain.model.ToolchainModel;
+import org.apache.maven.toolchain.model.io.xpp3.MavenToolchainsXpp3Reader;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import com.github.paulmoloney.maven.plugins.utils.CompilerVersionDetector;
+import com.github.paulmoloney.maven.plugins.utils.CompilerVersionDetectors;
+import com.github.paulmoloney.maven.plugins.utils.DefaultProcessExecutor;
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+import com.github.paulmoloney.maven.plugins.utils.ProbeJvmProfile;
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutor;
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutorException;
+
+/** This rule checks every jdk of a toolchain matrix, each selected from the user and global toolchains.xml by its
+ * requirements and held to its own version range, probing them concurrently and reporting all of them at once.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleJdkMatrixToolchainAware.java $
+ */
+public class RuleJdkMatrixToolchainAware extends AbstractToolChainAwareRule {
+    private static final String LS = System.getProperty( "line.separator" );
+
+    private static final String PASSED = "PASSED ";
+
+    private static final String FAILED = "FAILED ";
+
+    /**
+     * A ${env.NAME} or ${property} expression of a toolchains file
+     */
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{(env\\.)?([^}]+)\\}");
+
+    /**
+     * Detected versions per javac or release file fingerprint, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<FileFingerprint, String> VERSIONS = new ConcurrentHashMap<FileFingerprint, String>();
+
+    /**
+     * The jdks to verify
+     */
+    @Parameter
+    private List<JdkRequirement> jdkRequirements;
+
+    /**
+     * The toolchains file to select the jdks from, defaults to the user toolchains file of the build followed by the
+     * global one
+     */
+    @Parameter
+    private File toolchainsFile;
+
+    /**
+     * Number of jdks probed at once, defaults to the number of processors
+     */
+    @Parameter
+    private int threads;
+
+    /**
+     * Run javac with jvm options that reduce its startup time when its version can not be read from the jdk's
+     * release file
+     */
+    @Parameter (property = "enforcer.toolchain.probeProfile", defaultValue = "false")
+    private boolean probeProfile;
+
+    private Map<String, String> environment = System.getenv();
+
+	/**
+	* Probes each jdk of the matrix and fails with a report of every jdk when any of them is missing or out of range
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        try
+        {
+            initEnvironment(helper);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        final Log log = helper.getLog();
+
+        if (null == jdkRequirements || jdkRequirements.isEmpty())
+        {
+            throw new EnforcerRuleException("No jdkRequirements configured, aborting");
+        }
+        List<File> files = getToolchainsFiles();
+        final List<ToolchainModel> jdks = new ArrayList<ToolchainModel>();
+        for (File file : files)
+        {
+            jdks.addAll(readJdkToolchains(file));
+        }
+
+        List<Callable<String>> probes = new ArrayList<Callable<String>>();
+        for (final JdkRequirement requirement : jdkRequirements)
+        {
+            probes.add(new Callable<String>() {
+                public String call()
+                {
+                    return probe(requirement, jdks, log);
+                }
+            });
+        }
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, probes.size())));
+        StringBuilder report = new StringBuilder("Jdk matrix from " + StringUtils.join(files.iterator(), ", ") + ":");
+        boolean failed = false;
+        try
+        {
+            for (Future<String> outcome : pool.invokeAll(probes))
+            {
+                String line = outcome.get();
+                failed |= !line.startsWith(PASSED);
+                report.append(LS).append("  ").append(line);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new EnforcerRuleException("Interrupted while probing the jdk matrix", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new EnforcerRuleException("Unable to probe the jdk matrix", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+        if (failed)
+        {
+            throw new EnforcerRuleException(report.toString());
+        }
+        log.info(report.toString());
+    }
+
+    /**
+     * @return the report line of one jdk, starting with PASSED or FAILED
+     */
+    private String probe(JdkRequirement requirement, List<ToolchainModel> jdks, Log log)
+    {
+        ToolchainModel match = null;
+        try
+        {
+            for (ToolchainModel jdk : jdks)
+            {
+                if (matches(jdk, requirement.getRequirements()))
+                {
+                    match = jdk;
+                    break;
+                }
+            }
+        }
+        catch (InvalidVersionSpecificationException e)
+        {
+            return FAILED + requirement + ": " + e.getMessage();
+        }
+        if (null == match)
+        {
+            return FAILED + requirement + ": no jdk toolchain provides these requirements";
+        }
+        String jdkHome = getValue(match.getConfiguration(), "jdkHome");
+        if (null == jdkHome)
+        {
+            return FAILED + requirement + ": the matching toolchain has no jdkHome";
+        }
+        File javac = new File(jdkHome, "bin" + File.separator + "javac" + getExecutableExtension());
+        String detected = detectVersion(javac, log);
+        if (null == detected)
+        {
+            return FAILED + requirement + ": no version could be determined for " + javac;
+        }
+        String normalized = normalizeJDKVersion(detected);
+        String range = requirement.getRange();
+        if (null == range || "".equals(range.trim()))
+        {
+            return PASSED + requirement + ": " + jdkHome + " " + normalized;
+        }
+        try
+        {
+            if (containsVersion(VersionRange.createFromVersionSpec(range), new DefaultArtifactVersion(normalized)))
+            {
+                return PASSED + requirement + ": " + jdkHome + " " + normalized + " is in " + range;
+            }
+        }
+        catch (InvalidVersionSpecificationException e)
+        {
+            return FAILED + requirement + ": invalid range " + range + ", " + e.getMessage();
+        }
+        return FAILED + requirement + ": " + jdkHome + " " + normalized + " is not in " + range;
+    }
+
+    /**
+     * Reads the version from the jdk release file where there is one, otherwise runs javac -version
+     */
+    private String detectVersion(File javac, Log log)
+    {
+        CompilerVersionDetector detector = CompilerVersionDetectors.forCompilerId("javac");
+        File source = detector.locate(javac, null);
+        FileFingerprint fingerprint = FileFingerprint.of(null != source ? source : javac);
+        if (null == fingerprint)
+        {
+            return null;
+        }
+        String version = VERSIONS.get(fingerprint);
+        if (null != version)
+        {
+            return version;
+        }
+        try
+        {
+            if (null != source)
+            {
+                version = detector.detectVersion(source);
+            }
+            if (null == version)
+            {
+                ProbeJvmProfile profile = probeProfile ? new ProbeJvmProfile(javac.getParentFile().getParentFile(), "javac", getCacheDirectory()) : null;
+                ProcessExecutor process = null == profile
+                    ? new DefaultProcessExecutor().createExecutor(javac.getPath(), "-version")
+                    : new DefaultProcessExecutor().createExecutor(javac.getPath(), profile.getArguments(Arrays.asList("-version")));
+                try
+                {
+                    String[] output = process.runApplication().split("\\s");
+                    version = output.length > 1 ? output[1] : null;
+                }
+                finally
+                {
+                    if (null != profile)
+                    {
+                        profile.completed();
+                    }
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to read the version of " + javac, e);
+        }
+        catch (ProcessExecutorException e)
+        {
+            log.debug("Unable to run " + javac, e);
+        }
+        if (null != version)
+        {
+            VERSIONS.put(fingerprint, version);
+        }
+        return version;
+    }
+
+    /**
+     * Matches the provides of a toolchain as maven does, a version requirement is a range or a version equal to the
+     * provided one and other requirements have to be equal ignoring case
+     */
+    private boolean matches(ToolchainModel jdk, Map<String, String> requirements) throws InvalidVersionSpecificationException
+    {
+        if (null == requirements)
+        {
+            return true;
+        }
+        for (Map.Entry<String, String> requirement : requirements.entrySet())
+        {
+            String provided = getValue(jdk.getProvides(), requirement.getKey());
+            String required = requirement.getValue();
+            if (null == provided || null == required)
+            {
+                return false;
+            }
+            if (!"version".equals(requirement.getKey()))
+            {
+                if (!provided.equalsIgnoreCase(required))
+                {
+                    return false;
+                }
+                continue;
+            }
+            VersionRange range;
+            try
+            {
+                range = VersionRange.createFromVersionSpec(required);
+            }
+            catch (InvalidVersionSpecificationException e)
+            {
+                throw new InvalidVersionSpecificationException("invalid version requirement " + required + ", " + e.getMessage());
+            }
+            DefaultArtifactVersion version = new DefaultArtifactVersion(provided);
+            if (range.hasRestrictions() ? !containsVersion(range, version) : 0 != version.compareTo(range.getRecommendedVersion()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param element the provides or configuration of a toolchain, a dom or properties depending on the maven version
+     */
+    private String getValue(Object element, String name)
+    {
+        String value = null;
+        if (element instanceof Xpp3Dom)
+        {
+            Xpp3Dom child = ((Xpp3Dom) element).getChild(name);
+            value = null == child ? null : child.getValue();
+        }
+        else if (element instanceof Properties)
+        {
+            value = ((Properties) element).getProperty(name);
+        }
+        return null == value || "".equals(value.trim()) ? null : interpolate(value.trim());
+    }
+
+    /**
+     * Replaces ${env.NAME} by the environment variable and ${name} by the system property as maven does when it
+     * reads toolchains.xml, expressions that can not be resolved are kept
+     */
+    private String interpolate(String value)
+    {
+        Matcher matcher = EXPRESSION.matcher(value);
+        StringBuffer interpolated = new StringBuffer();
+        while (matcher.find())
+        {
+            String name = matcher.group(2);
+            String resolved = null == matcher.group(1) ? System.getProperty(name) : environment.get(name);
+            matcher.appendReplacement(interpolated, Matcher.quoteReplacement(null == resolved ? matcher.group() : resolved));
+        }
+        matcher.appendTail(interpolated);
+        return interpolated.toString();
+    }
+
+    private List<ToolchainModel> readJdkToolchains(File file) throws EnforcerRuleException
+    {
+        if (!file.isFile())
+        {
+            throw new EnforcerRuleException("The toolchains file " + file + " does not exist");
+        }
+        PersistedToolchains toolchains;
+        Reader reader = null;
+        try
+        {
+            reader = ReaderFactory.newXmlReader(file);
+            toolchains = new MavenToolchainsXpp3Reader().read(reader);
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to read " + file, e);
+        }
+        catch (XmlPullParserException e)
+        {
+            throw new EnforcerRuleException("Unable to parse " + file, e);
+        }
+        finally
+        {
+            IOUtil.close(reader);
+        }
+        List<ToolchainModel> jdks = new ArrayList<ToolchainModel>();
+        for (Object toolchain : toolchains.getToolchains())
+        {
+            if ("jdk".equals(((ToolchainModel) toolchain).getType()))
+            {
+                jdks.add((ToolchainModel) toolchain);
+            }
+        }
+        return jdks;
+    }
+
+    /**
+     * @return the configured file, else the user toolchains file maven was started with e.g. by -t (or
+     * ~/.m2/toolchains.xml) followed by the global one where they exist, the user toolchains taking precedence
+     */
+    private List<File> getToolchainsFiles() throws EnforcerRuleException
+    {
+        if (null != toolchainsFile)
+        {
+            return Collections.singletonList(toolchainsFile);
+        }
+        MavenSession session = getSession();
+        MavenExecutionRequest request = null == session ? null : session.getRequest();
+        File user = null == request ? null : request.getUserToolchainsFile();
+        if (null == user)
+        {
+            user = new File(System.getProperty("user.home"), ".m2" + File.separator + "toolchains.xml");
+        }
+        List<File> files = new ArrayList<File>();
+        for (File file : Arrays.asList(user, getGlobalToolchainsFile(request)))
+        {
+            if (null != file && file.isFile() && !files.contains(file))
+            {
+                files.add(file);
+            }
+        }
+        if (files.isEmpty())
+        {
+            throw new EnforcerRuleException("The toolchains file " + user + " does not exist");
+        }
+        return files;
+    }
+
+    /**
+     * @return the global toolchains file of the request, which maven 3.3.1 and later have (e.g. by -gt), else
+     * ${maven.home}/conf/toolchains.xml, or null if maven.home is not known
+     */
+    private File getGlobalToolchainsFile(MavenExecutionRequest request)
+    {
+        if (null != request)
+        {
+            try
+            {
+                Object file = request.getClass().getMethod("getGlobalToolchainsFile").invoke(request);
+                if (file instanceof File)
+                {
+                    return (File) file;
+                }
+            }
+            catch (Exception e)
+            {
+                // older maven versions have no global toolchains file of their own
+            }
+        }
+        String mavenHome = System.getProperty("maven.home");
+        return null == mavenHome ? null : new File(mavenHome, "conf" + File.separator + "toolchains.xml");
+    }
+
+    protected void setJdkRequirements(List<JdkRequirement> jdkRequirements)
+    {
+        this.jdkRequirements = jdkRequirements;
+    }
+
+    protected void setToolchainsFile(File toolchainsFile)
+    {
+        this.toolchainsFile = toolchainsFile;
+    }
+
+    protected void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    protected void setProbeProfile(boolean probeProfile)
+    {
+        this.probeProfile = probeProfile;
+    }
+
+    protected void setEnvironment(Map<String, String> environment)
+    {
+        this.environment = environment;
+    }
+}
@@ -0,0 +1,525 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.plexus.component.configurator.expression.ExpressionEvaluationException;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+import com.github.paulmoloney.maven.plugins.utils.ClassFile;
+import com.github.paulmoloney.maven.plugins.utils.CompilerLevels;
+import com.github.paulmoloney.maven.plugins.utils.JdkReleaseFile;
+import com.github.paulmoloney.maven.plugins.utils.ZipDirectory;
+
+/** This rule checks the class file versions of a multi-release jar, or of the output directory, layer by layer:
+ * base classes against a base release the toolchain jdk can compile for, and classes under
+ * META-INF/versions/N against N and the toolchain jdk. A root module-info.class only has to be java 9 or later, and
+ * META-INF/versions is an ordinary directory unless the manifest says Multi-Release: true. Only the 8 byte header of
+ * each class is read.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleMultiReleaseJarToolchainAware.java $
+ */
+public class RuleMultiReleaseJarToolchainAware extends AbstractToolChainAwareRule {
+    private static final int MAX_REPORTED = 100;
+
+    private static final String LS = System.getProperty( "line.separator" );
+
+    private static final Pattern VERSIONED = Pattern.compile("META-INF/versions/(\\d+)/.*");
+
+    private static final String MODULE_INFO = "module-info.class";
+
+    /**
+     * The first release with module descriptors
+     */
+    private static final int MODULES_RELEASE = 9;
+
+    /**
+     * Class headers read per task
+     */
+    private static final int BATCH_SIZE = 512;
+
+    /**
+     * The jar to check, defaults to the project jar when it has been packaged and to the output directory otherwise
+     */
+    @Parameter
+    private File jarFile;
+
+    /**
+     * The release the base classes are compiled for, defaults to maven.compiler.release or maven.compiler.target,
+     * otherwise base classes have to be older than the lowest versioned layer
+     */
+    @Parameter
+    private String baseRelease;
+
+    /**
+     * Number of threads reading class headers, defaults to the number of processors
+     */
+    @Parameter
+    private int threads;
+
+    /**
+     * If a suitable jdk from toolchains.xml can not be found, then try to match based on typical environmental variables
+     */
+    @Parameter (defaultValue = "true")
+    private boolean isFallBackAllowed = true;
+
+	/**
+	* Reads the class file versions of every layer and compares them with the levels each layer allows
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        try
+        {
+            initEnvironment(helper);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        final Log log = helper.getLog();
+
+        File source = getSource(helper);
+        if (null == source)
+        {
+            log.debug("No jar or output directory to check");
+            return;
+        }
+
+        executable = findJdkTool("javac", helper, log, isFallBackAllowed);
+        int toolchain = getToolchainFeature(getJdkHome(executable), log);
+
+        List<String> names = new ArrayList<String>();
+        ZipDirectory directory = null;
+        try
+        {
+            if (source.isFile())
+            {
+                directory = ZipDirectory.open(source);
+                for (String name : directory.getNames())
+                {
+                    if (name.endsWith(".class"))
+                    {
+                        names.add(name);
+                    }
+                }
+            }
+            else
+            {
+                for (Object name : FileUtils.getFileNames(source, "**/*.class", null, false))
+                {
+                    names.add(((String) name).replace(File.separatorChar, '/'));
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to list the classes of " + source, e);
+        }
+        if (!isMultiRelease(source, directory))
+        {
+            // the jvm ignores META-INF/versions unless the manifest declares a multi-release jar
+            for (Iterator<String> name = names.iterator(); name.hasNext();)
+            {
+                if (getLayer(name.next()) > 0)
+                {
+                    name.remove();
+                }
+            }
+            log.debug(source + " is not a multi-release jar, META-INF/versions is not checked");
+        }
+
+        int base = getBaseRelease(helper);
+        int minimum = CompilerLevels.getMinimumLevel(toolchain);
+        if (base > 0 && base < minimum)
+        {
+            throw new EnforcerRuleException("The base release " + base + " is below " + minimum
+                + ", the lowest level the toolchain jdk " + toolchain + " compiles for");
+        }
+        if (0 == base)
+        {
+            // a versioned layer only exists for classes the base release can not hold
+            base = Math.max(0, getLowestLayer(names) - 1);
+            log.debug("No base release configured, base classes have to be at most java " + base);
+        }
+        Set<String> problems = scan(source, directory, names, new Limits(base, toolchain));
+        if (!problems.isEmpty())
+        {
+            StringBuilder message = new StringBuilder();
+            message.append("Found ").append(problems.size()).append(" classes of the wrong level in ").append(source).append(':');
+            int reported = 0;
+            for (String problem : problems)
+            {
+                if (reported++ == MAX_REPORTED)
+                {
+                    message.append(LS).append("  ...");
+                    break;
+                }
+                message.append(LS).append("  ").append(problem);
+            }
+            throw new EnforcerRuleException(message.toString());
+        }
+        log.debug("Checked the levels of " + names.size() + " classes in " + source);
+    }
+
+    /**
+     * Reads the class headers in batches on a thread pool, jar entries through one channel shared with positioned reads
+     */
+    private Set<String> scan(final File source, final ZipDirectory directory, List<String> names, final Limits limits)
+        throws EnforcerRuleException
+    {
+        if (names.isEmpty())
+        {
+            return new TreeSet<String>();
+        }
+        RandomAccessFile jar = null;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int batches = (names.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, batches)));
+        try
+        {
+            final FileChannel channel;
+            if (null != directory)
+            {
+                jar = new RandomAccessFile(source, "r");
+                channel = jar.getChannel();
+            }
+            else
+            {
+                channel = null;
+            }
+            List<Callable<Collection<String>>> tasks = new ArrayList<Callable<Collection<String>>>();
+            for (int start = 0; start < names.size(); start += BATCH_SIZE)
+            {
+                final List<String> batch = names.subList(start, Math.min(names.size(), start + BATCH_SIZE));
+                tasks.add(new Callable<Collection<String>>() {
+                    public Collection<String> call() throws IOException
+                    {
+                        List<String> problems = new ArrayList<String>();
+                        for (String name : batch)
+                        {
+                            byte[] header = null == channel ? readHeader(new File(source, name)) : directory.readHead(channel, name, 8);
+                            String problem = limits.check(name, ClassFile.getMajorVersion(header));
+                            if (null != problem)
+                            {
+                                problems.add(problem);
+                            }
+                        }
+                        return problems;
+                    }
+                });
+            }
+            Set<String> problems = new TreeSet<String>();
+            for (Future<Collection<String>> result : pool.invokeAll(tasks))
+            {
+                problems.addAll(result.get());
+            }
+            return problems;
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to read " + source, e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new EnforcerRuleException("Interrupted while reading classes", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new EnforcerRuleException("Unable to read the classes of " + source, e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+            if (null != jar)
+            {
+                try
+                {
+                    jar.close();
+                }
+                catch (IOException e)
+                {
+                    // nothing was written
+                }
+            }
+        }
+    }
+
+    private static byte[] readHeader(File classFile) throws IOException
+    {
+        byte[] header = new byte[8];
+        InputStream in = new FileInputStream(classFile);
+        try
+        {
+            int read = 0;
+            int count;
+            while (read < header.length && (count = in.read(header, read, header.length - read)) > 0)
+            {
+                read += count;
+            }
+            return header;
+        }
+        finally
+        {
+            IOUtil.close(in);
+        }
+    }
+
+    /**
+     * @return true if the manifest has Multi-Release: true, or for an output directory without a manifest, which the
+     * jar packaging writes later
+     */
+    private static boolean isMultiRelease(File source, ZipDirectory directory) throws EnforcerRuleException
+    {
+        InputStream in = null;
+        try
+        {
+            if (null != directory)
+            {
+                byte[] manifest = directory.read(JarFile.MANIFEST_NAME);
+                if (null == manifest)
+                {
+                    return false;
+                }
+                in = new ByteArrayInputStream(manifest);
+            }
+            else
+            {
+                File manifest = new File(source, JarFile.MANIFEST_NAME);
+                if (!manifest.isFile())
+                {
+                    return true;
+                }
+                in = new FileInputStream(manifest);
+            }
+            return "true".equalsIgnoreCase(new Manifest(in).getMainAttributes().getValue("Multi-Release"));
+        }
+        catch (IOException e)
+        {
+            throw new EnforcerRuleException("Unable to read the manifest of " + source, e);
+        }
+        finally
+        {
+            IOUtil.close(in);
+        }
+    }
+
+    /**
+     * @return the jar parameter, the packaged project jar or the output directory, null if none of them exist
+     */
+    private File getSource(EnforcerRuleHelper helper) throws EnforcerRuleException
+    {
+        if (null != jarFile)
+        {
+            if (!jarFile.isFile())
+            {
+                throw new EnforcerRuleException("The jar " + jarFile + " does not exist");
+            }
+            return jarFile;
+        }
+        String finalName = evaluate(helper, "${project.build.finalName}");
+        if (null != finalName && null != getBuildDirectory())
+        {
+            File packaged = new File(getBuildDirectory(), finalName + ".jar");
+            if (packaged.isFile())
+            {
+                return packaged;
+            }
+        }
+        return getOutputDirectory().isDirectory() ? getOutputDirectory() : null;
+    }
+
+    /**
+     * @return the configured base release, else the compiler release or target, 0 if none is set
+     */
+    private int getBaseRelease(EnforcerRuleHelper helper) throws EnforcerRuleException
+    {
+        String release = baseRelease;
+        if (null == release)
+        {
+            release = evaluate(helper, "${maven.compiler.release}");
+        }
+        if (null == release)
+        {
+            release = evaluate(helper, "${maven.compiler.target}");
+        }
+        return null == release ? 0 : CompilerLevels.parseFeature(release);
+    }
+
+    /**
+     * @return the lowest N of the META-INF/versions/N layers, 0 if there are none
+     */
+    private int getLowestLayer(List<String> names)
+    {
+        int lowest = 0;
+        for (String name : names)
+        {
+            int layer = getLayer(name);
+            if (layer > 0 && (0 == lowest || layer < lowest))
+            {
+                lowest = layer;
+            }
+        }
+        return lowest;
+    }
+
+    private String evaluate(EnforcerRuleHelper helper, String expression) throws EnforcerRuleException
+    {
+        try
+        {
+            Object value = helper.evaluate(expression);
+            return null == value || "".equals(value.toString().trim()) || -1 != value.toString().indexOf("${")
+                ? null : value.toString().trim();
+        }
+        catch (ExpressionEvaluationException e)
+        {
+            throw new EnforcerRuleException("Unable to evaluate " + expression, e);
+        }
+    }
+
+    /**
+     * @return the feature release of the toolchain jdk from its release file, 0 if it is not known
+     */
+    private int getToolchainFeature(File jdkHome, Log log)
+    {
+        if (null == jdkHome)
+        {
+            return 0;
+        }
+        try
+        {
+            JdkReleaseFile release = JdkReleaseFile.read(JdkReleaseFile.locate(jdkHome));
+            return null == release ? 0 : release.getFeatureVersion();
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to read the release of the jdk at " + jdkHome, e);
+            return 0;
+        }
+    }
+
+    /**
+     * @return N for classes under META-INF/versions/N, 0 for base classes
+     */
+    private static int getLayer(String name)
+    {
+        Matcher matcher = VERSIONED.matcher(name);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+
+    /**
+     * The levels each layer allows, 0 where there is no limit
+     */
+    private static final class Limits
+    {
+        private final int base;
+
+        private final int toolchain;
+
+        Limits(int base, int toolchain)
+        {
+            this.base = base;
+            this.toolchain = toolchain;
+        }
+
+        /**
+         * @return a problem or null if the class is within the limits of its layer
+         */
+        String check(String name, int majorVersion)
+        {
+            if (majorVersion < 0)
+            {
+                return name + " is not a class file";
+            }
+            int level = ClassFile.getFeatureVersion(majorVersion);
+            String found = name + " is java " + level + " (class version " + majorVersion + ")";
+            int layer = getLayer(name);
+            if (layer > 0 && level > layer)
+            {
+                return found + " above its layer META-INF/versions/" + layer;
+            }
+            if (MODULE_INFO.equals(name))
+            {
+                // a module descriptor is commonly compiled for 9 next to base classes of an older release
+                if (level < MODULES_RELEASE)
+                {
+                    return found + " below java " + MODULES_RELEASE + ", the first release with modules";
+                }
+            }
+            else if (0 == layer && base > 0 && level > base)
+            {
+                return found + " above the base release " + base;
+            }
+            if (toolchain > 0 && level > toolchain)
+            {
+                return found + " above the toolchain jdk " + toolchain;
+            }
+            return null;
+        }
+    }
+
+    protected void setJarFile(File jarFile)
+    {
+        this.jarFile = jarFile;
+    }
+
+    protected void setBaseRelease(String baseRelease)
+    {
+        this.baseRelease = baseRelease;
+    }
+
+    protected void setThreads(int threads)
+    {
+        this.threads = threads;
+    }
+
+    protected void setFallback(boolean isFallBackAllowed)
+    {
+        this.isFallBackAllowed = isFallBackAllowed;
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.github.paulmoloney.maven.plugins.utils.ClassFile;
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+import com.github.paulmoloney.maven.plugins.utils.JImageReader;
+
+/** This rule checks that the platform modules required by the compiled module-info.class exist in the toolchain jdk,
+ * by reading the module table of its lib/modules runtime image rather than running it. Modules of other names are
+ * supplied by the project's dependencies and are not checked.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleRequiredModulesToolchainAware.java $
+ */
+public class RuleRequiredModulesToolchainAware extends AbstractToolChainAwareRule {
+    /**
+     * Module names per runtime image fingerprint, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<FileFingerprint, Set<String>> IMAGE_MODULES = new ConcurrentHashMap<FileFingerprint, Set<String>>();
+
+    /**
+     * Name prefixes of the modules a jdk provides
+     */
+    private static final String[] PLATFORM_PREFIXES = { "java.", "jdk.", "javafx." };
+
+    /**
+     * Modules to require in addition to the platform modules read from module-info.class, checked whatever their name
+     */
+    @Parameter
+    private List<String> modules;
+
+    /**
+     * If a suitable jdk from toolchains.xml can not be found, then try to match based on typical environmental variables
+     */
+    @Parameter (defaultValue = "true")
+    private boolean isFallBackAllowed = true;
+
+	/**
+	* Compares the requires clauses of the compiled module descriptor with the modules of the toolchain jdk
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        try
+        {
+            initEnvironment(helper);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        final Log log = helper.getLog();
+
+        Set<String> required = new LinkedHashSet<String>();
+        Set<String> optional = new LinkedHashSet<String>();
+        if (null != modules)
+        {
+            required.addAll(modules);
+        }
+        File descriptor = new File(getOutputDirectory(), "module-info.class");
+        if (descriptor.isFile())
+        {
+            try
+            {
+                ClassFile moduleInfo = ClassFile.parse(descriptor);
+                for (String module : moduleInfo.getModuleRequires())
+                {
+                    if (!isPlatformModule(module))
+                    {
+                        log.debug("Module " + module + " is not a platform module, left to the project's dependencies");
+                    }
+                    else if (moduleInfo.getStaticModuleRequires().contains(module))
+                    {
+                        optional.add(module);
+                    }
+                    else
+                    {
+                        required.add(module);
+                    }
+                }
+                optional.removeAll(required);
+            }
+            catch (IOException e)
+            {
+                throw new EnforcerRuleException("Unable to read " + descriptor, e);
+            }
+        }
+        if (required.isEmpty() && optional.isEmpty())
+        {
+            log.debug("No module requirements found in " + descriptor);
+            return;
+        }
+
+        executable = findJdkTool("javac", helper, log, isFallBackAllowed);
+        File jdkHome = getJdkHome(executable);
+        if (null == jdkHome)
+        {
+            throw new EnforcerRuleException("No valid jdk found, aborting");
+        }
+        File image = new File(jdkHome, "lib" + File.separator + "modules");
+        FileFingerprint fingerprint = FileFingerprint.of(image);
+        if (null == fingerprint)
+        {
+            throw new EnforcerRuleException("The jdk at " + jdkHome + " has no lib/modules runtime image, modules "
+                + required + " require a jdk 9 or later toolchain");
+        }
+
+        Set<String> available = IMAGE_MODULES.get(fingerprint);
+        if (null == available)
+        {
+            try
+            {
+                available = JImageReader.open(image).getModuleNames();
+            }
+            catch (IOException e)
+            {
+                throw new EnforcerRuleException("Unable to read the runtime image " + image, e);
+            }
+            IMAGE_MODULES.put(fingerprint, available);
+            log.debug("Found " + available.size() + " modules in " + image);
+        }
+
+        List<String> missing = getMissing(optional, available);
+        if (!missing.isEmpty())
+        {
+            log.warn("Modules " + missing + " required static are not available in the jdk at " + jdkHome
+                + ", code using them has to cope with their absence");
+        }
+        missing = getMissing(required, available);
+        if (!missing.isEmpty())
+        {
+            throw new EnforcerRuleException("Modules " + missing + " are not available in the jdk at " + jdkHome);
+        }
+        log.debug("Modules " + required + " are available in the jdk at " + jdkHome);
+    }
+
+    private static List<String> getMissing(Set<String> modules, Set<String> available)
+    {
+        List<String> missing = new ArrayList<String>();
+        for (String module : modules)
+        {
+            if (!available.contains(module))
+            {
+                missing.add(module);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return true if the module is named as the modules of a jdk are
+     */
+    static boolean isPlatformModule(String module)
+    {
+        for (String prefix : PLATFORM_PREFIXES)
+        {
+            if (module.startsWith(prefix))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected void setModules(List<String> modules)
+    {
+        this.modules = modules;
+    }
+
+    protected void setFallback(boolean isFallBackAllowed)
+    {
+        this.isFallBackAllowed = isFallBackAllowed;
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.toolchain.Toolchain;
+
+import com.github.paulmoloney.maven.plugins.utils.DefaultProcessExecutor;
+import com.github.paulmoloney.maven.plugins.utils.FileFingerprint;
+import com.github.paulmoloney.maven.plugins.utils.ProbeJvmProfile;
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutor;
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutorException;
+import com.github.paulmoloney.maven.plugins.utils.VerificationStamp;
+import com.github.paulmoloney.maven.plugins.utils.VersionOutputParser;
+import com.github.paulmoloney.maven.plugins.utils.VersionOutputParsers;
+
+/** This rule checks that the version of a tool of any toolchain type, e.g. protoc, node or gcc, is allowed.
+ * @author <a href="mailto:">Paul Moloney</a>
+ * @version $Id: RuleToolVersionToolchainAware.java $
+ */
+public class RuleToolVersionToolchainAware extends AbstractToolChainAwareRule {
+
+    /**
+     * Versions detected per tool fingerprint and version command, shared by every module of the reactor
+     */
+    private static final ConcurrentMap<String, String> VERSIONS = new ConcurrentHashMap<String, String>();
+
+    /**
+     * The type of the toolchain providing the tool
+     */
+    @Parameter (defaultValue = "jdk")
+    private String toolchainType = "jdk";
+
+    /**
+     * The name of the tool the toolchain is asked for
+     */
+    @Parameter (required = true)
+    private String tool;
+
+    /**
+     * The arguments that make the tool print its version, separated by spaces
+     */
+    @Parameter (defaultValue = "--version")
+    private String versionArgument = "--version";
+
+    /**
+     * A regular expression finding the version in the first line of stdout, else of stderr, its first group when it has groups,
+     * takes precedence over versionParser
+     */
+    @Parameter
+    private String versionPattern;
+
+    /**
+     * A named parser for the first line of stdout, else of stderr: version, second-token or first-token
+     */
+    @Parameter (defaultValue = "version")
+    private String versionParser = "version";
+
+    /**
+     * Seconds to wait for the tool before it is killed, 0 waits for ever
+     */
+    @Parameter (defaultValue = "30")
+    private int timeout = 30;
+
+    /**
+     * Run a tool of a jdk toolchain with jvm options that reduce its startup time and, on jdk 13+, a class data
+     * sharing archive kept in the cache directory
+     */
+    @Parameter (property = "enforcer.toolchain.probeProfile", defaultValue = "false")
+    private boolean probeProfile;
+
+    private ProcessExecutor process;
+
+	/**
+	* Runs the tool of the toolchain, unless it is unchanged since it was last verified, and checks its version
+	* @see org.apache.maven.enforcer.rule.api.EnforcerRule&#execute(org.apache.maven.enforcer.rule.api.EnforcerRuleHelper)
+	*/
+    public void execute( EnforcerRuleHelper helper ) throws EnforcerRuleException {
+        try
+        {
+            super.init(helper);
+            if (null == tool || "".equals(tool.trim()))
+            {
+                throw new MojoExecutionException("Tool parameter was not supplied for rule usage");
+            }
+            if (null == toolchainType || "".equals(toolchainType.trim()))
+            {
+                toolchainType = "jdk";
+            }
+            Toolchain tc = findToolChain(toolchainType, helper, null);
+            executable = null == tc ? null : tc.findTool(tool);
+        }
+        catch (MojoExecutionException e)
+        {
+            throw new EnforcerRuleException("Error initialising mojo", e);
+        }
+        final Log log = helper.getLog();
+        if (null == executable || "".equals(executable.trim()))
+        {
+            throw new EnforcerRuleException("No " + toolchainType + " toolchain providing " + tool + " found, aborting");
+        }
+        checkArchitecture(executable, log);
+
+        VersionOutputParser parser = getParser();
+        String command = versionArgument + " | " + parser;
+        FileFingerprint fingerprint = FileFingerprint.of(new File(executable));
+        String key = null == fingerprint ? null : fingerprint + " " + command;
+        File stampFile = getStampFile();
+        if (null != key && null != stampFile)
+        {
+            VerificationStamp stamp = VerificationStamp.read(stampFile);
+            if (null != stamp && stamp.matches(key, getVersion()))
+            {
+                log.debug("Unchanged " + executable + " already verified, see " + stampFile);
+                if (!stamp.isPassed())
+                {
+                    throw new EnforcerRuleException(stamp.getMessage());
+                }
+                return;
+            }
+        }
+
+        String toolVersion = null == key ? null : VERSIONS.get(key);
+        if (null == toolVersion)
+        {
+            toolVersion = runToolAndRetrieveVersion(parser, log);
+            if (null != key)
+            {
+                VERSIONS.put(key, toolVersion);
+            }
+        }
+        log.debug(tool + " version: " + toolVersion);
+
+        try
+        {
+            enforceVersion(log, tool, getVersion(), new DefaultArtifactVersion(toolVersion));
+        }
+        catch (EnforcerRuleException e)
+        {
+            writeStamp(stampFile, key, false, toolVersion, e.getMessage(), log);
+            throw e;
+        }
+        writeStamp(stampFile, key, true, toolVersion, null, log);
+    }
+
+    private VersionOutputParser getParser() throws EnforcerRuleException
+    {
+        if (null != versionPattern && !"".equals(versionPattern))
+        {
+            try
+            {
+                return VersionOutputParsers.forPattern(versionPattern);
+            }
+            catch (PatternSyntaxException e)
+            {
+                throw new EnforcerRuleException("Invalid versionPattern " + versionPattern, e);
+            }
+        }
+        VersionOutputParser parser = VersionOutputParsers.forName(versionParser);
+        if (null == parser)
+        {
+            throw new EnforcerRuleException("Unknown versionParser " + versionParser + ", use version, second-token or first-token");
+        }
+        return parser;
+    }
+
+    /**
+     * Runs the tool with the version arguments, killing it after the timeout
+     * @return the version parsed from its first line on stdout or, failing that, on stderr
+     * @throws EnforcerRuleException if version can not be determined
+     */
+    private String runToolAndRetrieveVersion(VersionOutputParser parser, Log log) throws EnforcerRuleException
+    {
+        ProbeJvmProfile profile = null;
+        if (null == process)
+        {
+            String arguments = null == versionArgument ? "" : versionArgument.trim();
+            List<String> command = "".equals(arguments) ? Collections.<String>emptyList() : Arrays.asList(arguments.split("\\s+"));
+            if (probeProfile && "jdk".equals(toolchainType))
+            {
+                profile = new ProbeJvmProfile(getJdkHome(executable), tool, getCacheDirectory());
+                // the java launcher takes jvm options as they are, the other jdk tools with -J
+                command = "java".equals(tool) ? profile.getJvmArguments(command) : profile.getArguments(command);
+            }
+            process = new DefaultProcessExecutor().createExecutor(executable, command, timeout);
+        }
+        String[] lines;
+        try
+        {
+            lines = process.runApplicationLines();
+        }
+        catch (ProcessExecutorException e)
+        {
+            throw new EnforcerRuleException("Error determining version of " + process.getCommandLine(), e);
+        }
+        finally
+        {
+            if (null != profile)
+            {
+                profile.completed();
+            }
+        }
+        // most tools print their version on stdout, some such as java -version and older gcc front ends on stderr
+        for (String line : lines)
+        {
+            log.debug(process.getCommandLine() + " printed: " + line);
+            String toolVersion = parser.parse(line);
+            if (null != toolVersion && !"".equals(toolVersion.trim()))
+            {
+                return toolVersion.trim();
+            }
+        }
+        throw new EnforcerRuleException("No version matching " + parser + " in the output of "
+            + process.getCommandLine() + ": " + lines[0] + " / " + lines[1]);
+    }
+
+    /**
+     * @return the stamp recording the last verification of this tool or null if there is no build directory
+     */
+    private File getStampFile()
+    {
+        if (null == getBuildDirectory())
+        {
+            return null;
+        }
+        String name = (toolchainType + "-" + tool).replaceAll("[^A-Za-z0-9.-]", "_");
+        return new File(getBuildDirectory(), "enforcer-toolchain-rules" + File.separator + "tool-version-" + name + ".stamp");
+    }
+
+    private void writeStamp(File stampFile, String key, boolean passed, String detectedVersion, String message, Log log)
+    {
+        if (null == stampFile || null == key)
+        {
+            return;
+        }
+        try
+        {
+            new VerificationStamp(key, getVersion(), passed, detectedVersion, message).write(stampFile);
+        }
+        catch (IOException e)
+        {
+            log.debug("Unable to write verification stamp " + stampFile, e);
+        }
+    }
+
+    protected void setToolchainType(String toolchainType)
+    {
+        this.toolchainType = toolchainType;
+    }
+
+    protected void setTool(String tool)
+    {
+        this.tool = tool;
+    }
+
+    protected void setVersionArgument(String versionArgument)
+    {
+        this.versionArgument = versionArgument;
+    }
+
+    protected void setVersionPattern(String versionPattern)
+    {
+        this.versionPattern = versionPattern;
+    }
+
+    protected void setVersionParser(String versionParser)
+    {
+        this.versionParser = versionParser;
+    }
+
+    protected void setTimeout(int timeout)
+    {
+        this.timeout = timeout;
+    }
+
+    protected void setProbeProfile(boolean probeProfile)
+    {
+        this.probeProfile = probeProfile;
+    }
+
+    protected void setProcess(ProcessExecutor process)
+    {
+        this.process = process;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Paul Moloney
+ * Shared fixture of the toolchain aware rule tests: a helper evaluating an empty project in a mocked session whose
+ * jdk toolchain is mocked.
+ */
+public abstract class AbstractToolChainAwareRuleTestCase
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+	protected EnforcerRuleHelper helper;
+	protected MavenSession session;
+	protected ToolchainManager tcManager;
+	protected Toolchain toolChain;
+	protected Log log;
+
+	@Before
+	public void setUpHelper() throws Exception
+	{
+		helper = mock(EnforcerRuleHelper.class);
+		session = mock(MavenSession.class);
+		tcManager = mock(ToolchainManager.class);
+		toolChain = mock(Toolchain.class);
+		log = mock(Log.class);
+
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+	}
+
+	/**
+	 * Makes the jdk toolchain provide the given javac
+	 */
+	protected void mockToolchain(File javac)
+	{
+		when(toolChain.findTool("javac")).thenReturn(javac.getAbsolutePath());
+	}
+
+	/**
+	 * Creates a jdk home with an empty bin/javac and makes the jdk toolchain provide it
+	 * @return the jdk home
+	 */
+	protected File newJdkHome(String name) throws IOException
+	{
+		File jdkHome = folder.newFolder(name);
+		File javac = new File(jdkHome, "bin/javac");
+		javac.getParentFile().mkdirs();
+		javac.createNewFile();
+		mockToolchain(javac);
+		return jdkHome;
+	}
+
+	/**
+	 * Creates the project's output directory
+	 */
+	protected File newOutputDirectory() throws Exception
+	{
+		File outputDirectory = folder.newFolder("classes");
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn(outputDirectory.getAbsolutePath());
+		return outputDirectory;
+	}
+}
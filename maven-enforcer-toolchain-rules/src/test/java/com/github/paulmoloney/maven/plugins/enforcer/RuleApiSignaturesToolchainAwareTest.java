@@ -0,0 +1,266 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleApiSignaturesToolchainAware.
+ */
+public class RuleApiSignaturesToolchainAwareTest extends AbstractToolChainAwareRuleTestCase
+{
+	private File jdkHome;
+	private File outputDirectory;
+	private RuleApiSignaturesToolchainAware rule;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		jdkHome = newJdkHome("jdk-1.6");
+		outputDirectory = newOutputDirectory();
+		writeRuntimeJar(new File(jdkHome, "jre/lib/rt.jar"), "java/lang/Object", "java/lang/String");
+
+		rule = new RuleApiSignaturesToolchainAware();
+		rule.setCacheDirectory(folder.newFolder("cache"));
+	}
+
+	@Test
+	public void testAvailableApisPass() throws Exception
+	{
+		copyClass(UsesString.class);
+
+		rule.execute(helper);
+		assertEquals(1, new File(folder.getRoot(), "cache/signatures").list().length);
+	}
+
+	@Test
+	public void testMissingClassFails() throws Exception
+	{
+		copyClass(UsesString.class);
+		copyClass(UsesStringBuilder.class);
+
+		try
+		{
+			rule.execute(helper);
+			fail("java.lang.StringBuilder is not in the jdk");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString(UsesStringBuilder.class.getName() + " -> java.lang.StringBuilder"));
+			assertFalse(e.getMessage().contains(UsesString.class.getName() + " ->"));
+		}
+	}
+
+	@Test
+	public void testIgnoredClassesPass() throws Exception
+	{
+		copyClass(UsesStringBuilder.class);
+
+		rule.setIgnores(Collections.singletonList("java/lang/StringBuilder"));
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testPackageMissingFromJdkFails() throws Exception
+	{
+		File jdk11 = newJdkHome("jdk-11");
+		writeModulesImage(new File(jdk11, "lib/modules"), "java/lang/Object", "java/lang/String");
+		writeReferringClass(new File(outputDirectory, "a/UsesJaxb.class"), "a/UsesJaxb", "javax/xml/bind/JAXBContext");
+
+		try
+		{
+			rule.execute(helper);
+			fail("jdk 11 has no javax.xml.bind");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("a.UsesJaxb -> javax.xml.bind.JAXBContext"));
+		}
+
+		// supplied by a dependency, e.g. jakarta.xml.bind-api
+		File api = folder.newFile("jaxb-api.jar");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(api));
+		out.putNextEntry(new ZipEntry("javax/xml/bind/JAXBContext.class"));
+		out.close();
+		MavenProject project = mock(MavenProject.class);
+		when(project.getCompileClasspathElements()).thenReturn(Arrays.asList(outputDirectory.getAbsolutePath(), api.getAbsolutePath()));
+		when(helper.evaluate("${project}")).thenReturn(project);
+		rule.execute(helper);
+	}
+
+	static class UsesString
+	{
+		String describe(Object value)
+		{
+			return String.valueOf(value).trim();
+		}
+	}
+
+	static class UsesStringBuilder
+	{
+		String join(Object left, Object right)
+		{
+			return new StringBuilder().append(left).append(right).toString();
+		}
+	}
+
+	private void copyClass(Class<?> type) throws Exception
+	{
+		String path = type.getName().replace('.', '/') + ".class";
+		FileUtils.copyURLToFile(type.getClassLoader().getResource(path), new File(outputDirectory, path));
+	}
+
+	/**
+	 * Writes a class that extends Object and refers to one other class
+	 */
+	private static void writeReferringClass(File file, String name, String referenced) throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(55);
+		out.writeShort(7);
+		String[] classes = { name, "java/lang/Object", referenced };
+		for (int i = 0; i < classes.length; i++)
+		{
+			out.writeByte(1);
+			out.writeUTF(classes[i]);
+			out.writeByte(7);
+			out.writeShort(1 + 2 * i);
+		}
+		out.writeShort(0x21);
+		out.writeShort(2);
+		out.writeShort(4);
+		for (int i = 0; i < 4; i++)
+		{
+			out.writeShort(0);
+		}
+		file.getParentFile().mkdirs();
+		RuleRequiredModulesToolchainAwareTest.write(file, bytes.toByteArray());
+	}
+
+	/**
+	 * Writes a little endian jimage holding the classes of the running jdk with the given internal names in java.base
+	 */
+	private static void writeModulesImage(File file, String... classes) throws Exception
+	{
+		ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		strings.write(0);
+		int module = RuleRequiredModulesToolchainAwareTest.appendString(strings, "java.base");
+		int extension = RuleRequiredModulesToolchainAwareTest.appendString(strings, "class");
+		ByteArrayOutputStream locations = new ByteArrayOutputStream();
+		ByteArrayOutputStream resources = new ByteArrayOutputStream();
+		List<Integer> offsets = new ArrayList<Integer>();
+		for (String name : classes)
+		{
+			int parent = RuleRequiredModulesToolchainAwareTest.appendString(strings, name.substring(0, name.lastIndexOf('/')));
+			int base = RuleRequiredModulesToolchainAwareTest.appendString(strings, name.substring(name.lastIndexOf('/') + 1));
+			InputStream in = ClassLoader.getSystemResourceAsStream(name + ".class");
+			byte[] content;
+			try
+			{
+				content = IOUtil.toByteArray(in);
+			}
+			finally
+			{
+				IOUtil.close(in);
+			}
+			offsets.add(Integer.valueOf(locations.size()));
+			RuleRequiredModulesToolchainAwareTest.appendAttribute(locations, 1, module);
+			RuleRequiredModulesToolchainAwareTest.appendAttribute(locations, 2, parent);
+			RuleRequiredModulesToolchainAwareTest.appendAttribute(locations, 3, base);
+			RuleRequiredModulesToolchainAwareTest.appendAttribute(locations, 4, extension);
+			RuleRequiredModulesToolchainAwareTest.appendAttribute(locations, 5, resources.size());
+			RuleRequiredModulesToolchainAwareTest.appendAttribute(locations, 7, content.length);
+			locations.write(0);
+			resources.write(content);
+		}
+		ByteBuffer image = ByteBuffer.allocate(28 + classes.length * 8 + locations.size() + strings.size() + resources.size());
+		image.order(ByteOrder.LITTLE_ENDIAN);
+		image.putInt(0xCAFEDADA).putInt(0x00010000).putInt(0).putInt(classes.length).putInt(classes.length);
+		image.putInt(locations.size()).putInt(strings.size());
+		for (int i = 0; i < classes.length; i++)
+		{
+			image.putInt(0);
+		}
+		for (Integer offset : offsets)
+		{
+			image.putInt(offset.intValue());
+		}
+		image.put(locations.toByteArray()).put(strings.toByteArray()).put(resources.toByteArray());
+		file.getParentFile().mkdirs();
+		RuleRequiredModulesToolchainAwareTest.write(file, image.array());
+	}
+
+	/**
+	 * Writes a jar holding the classes of the running jdk with the given internal names
+	 */
+	private static void writeRuntimeJar(File jar, String... classes) throws Exception
+	{
+		jar.getParentFile().mkdirs();
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+		try
+		{
+			for (String name : classes)
+			{
+				out.putNextEntry(new ZipEntry(name + ".class"));
+				InputStream in = ClassLoader.getSystemResourceAsStream(name + ".class");
+				try
+				{
+					IOUtil.copy(in, out);
+				}
+				finally
+				{
+					IOUtil.close(in);
+				}
+				out.closeEntry();
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+}
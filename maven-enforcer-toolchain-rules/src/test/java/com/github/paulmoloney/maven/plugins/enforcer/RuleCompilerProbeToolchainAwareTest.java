@@ -0,0 +1,216 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.compiler.Compiler;
+import org.codehaus.plexus.compiler.CompilerConfiguration;
+import org.codehaus.plexus.compiler.CompilerError;
+import org.codehaus.plexus.compiler.CompilerException;
+import org.codehaus.plexus.compiler.manager.CompilerManager;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleCompilerProbeToolchainAware.
+ */
+public class RuleCompilerProbeToolchainAwareTest extends AbstractToolChainAwareRuleTestCase
+{
+	private CompilerManager manager;
+	private Compiler compiler;
+	private File executable;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		manager = mock(CompilerManager.class);
+		compiler = mock(Compiler.class);
+		executable = folder.newFile("javac");
+		mockToolchain(executable);
+
+		when(helper.getComponent(CompilerManager.class)).thenReturn(manager);
+		when(manager.getCompiler("javac")).thenReturn(compiler);
+	}
+
+	@Test
+	public void testSupportedRelease() throws Exception
+	{
+		when(compiler.compile(any(CompilerConfiguration.class))).thenReturn(new ArrayList<CompilerError>());
+
+		RuleCompilerProbeToolchainAware rule = new RuleCompilerProbeToolchainAware();
+		rule.setRelease("8");
+		rule.execute(helper);
+
+		verify(compiler).compile(any(CompilerConfiguration.class));
+	}
+
+	@Test
+	public void testReleaseFromCompilerPluginConfiguration() throws Exception
+	{
+		Plugin plugin = new Plugin();
+		plugin.setArtifactId("maven-compiler-plugin");
+		Xpp3Dom configuration = new Xpp3Dom("configuration");
+		Xpp3Dom release = new Xpp3Dom("release");
+		release.setValue("17");
+		configuration.addChild(release);
+		plugin.setConfiguration(configuration);
+		MavenProject project = mock(MavenProject.class);
+		when(project.getBuildPlugins()).thenReturn(Collections.singletonList(plugin));
+		when(helper.evaluate("${project}")).thenReturn(project);
+		List<CompilerError> errors = new ArrayList<CompilerError>();
+		errors.add(new CompilerError("release version 17 not supported", true));
+		when(compiler.compile(any(CompilerConfiguration.class))).thenReturn(errors);
+
+		RuleCompilerProbeToolchainAware rule = new RuleCompilerProbeToolchainAware();
+		try
+		{
+			rule.execute(helper);
+			fail("Probe should have failed");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("does not support --release 17"));
+		}
+		ArgumentCaptor<CompilerConfiguration> config = ArgumentCaptor.forClass(CompilerConfiguration.class);
+		verify(compiler).compile(config.capture());
+		assertThat(config.getValue().getCustomCompilerArgumentsAsMap().get("--release"), is("17"));
+	}
+
+	@Test
+	public void testUnsupportedTargetIsCachedPerFingerprint() throws Exception
+	{
+		List<CompilerError> errors = new ArrayList<CompilerError>();
+		errors.add(new CompilerError("invalid target release: 17", true));
+		when(compiler.compile(any(CompilerConfiguration.class))).thenReturn(errors);
+
+		for (int i = 0; i < 2; i++)
+		{
+			RuleCompilerProbeToolchainAware rule = new RuleCompilerProbeToolchainAware();
+			rule.setSource("17");
+			rule.setTarget("17");
+			try
+			{
+				rule.execute(helper);
+				fail("Probe should have failed");
+			}
+			catch (EnforcerRuleException e)
+			{
+				assertThat(e.getMessage(), containsString("-source 17 -target 17"));
+				assertThat(e.getMessage(), containsString("invalid target release: 17"));
+			}
+		}
+
+		verify(compiler, times(1)).compile(any(CompilerConfiguration.class));
+	}
+
+	@Test
+	public void testCompilerFailureIsNotCached() throws Exception
+	{
+		when(compiler.compile(any(CompilerConfiguration.class))).thenThrow(new CompilerException("Unable to start javac"))
+			.thenReturn(new ArrayList<CompilerError>());
+
+		RuleCompilerProbeToolchainAware rule = new RuleCompilerProbeToolchainAware();
+		rule.setRelease("11");
+		try
+		{
+			rule.execute(helper);
+			fail("The compiler could not be run");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("Unable to run compiler probe"));
+		}
+		rule = new RuleCompilerProbeToolchainAware();
+		rule.setRelease("11");
+		rule.execute(helper);
+
+		verify(compiler, times(2)).compile(any(CompilerConfiguration.class));
+	}
+
+	@Test
+	public void testMissingExecutableIsNotCached() throws Exception
+	{
+		List<CompilerError> errors = new ArrayList<CompilerError>();
+		errors.add(new CompilerError("invalid target release: 21", true));
+		when(compiler.compile(any(CompilerConfiguration.class))).thenReturn(errors).thenReturn(new ArrayList<CompilerError>());
+		when(toolChain.findTool("javac")).thenReturn(new File(folder.getRoot(), "missing/javac").getAbsolutePath());
+
+		RuleCompilerProbeToolchainAware rule = new RuleCompilerProbeToolchainAware();
+		rule.setTarget("21");
+		try
+		{
+			rule.execute(helper);
+			fail("Probe should have failed");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("invalid target release: 21"));
+		}
+		rule = new RuleCompilerProbeToolchainAware();
+		rule.setTarget("21");
+		rule.execute(helper);
+
+		verify(compiler, times(2)).compile(any(CompilerConfiguration.class));
+	}
+
+	@Test
+	public void testReleaseMissingFromCtSymFailsWithoutCompiling() throws Exception
+	{
+		File jdkHome = newJdkHome("jdk-12");
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "JAVA_VERSION=\"12.0.2\"\n");
+		new File(jdkHome, "lib").mkdirs();
+		ZipOutputStream ctSym = new ZipOutputStream(new FileOutputStream(new File(jdkHome, "lib/ct.sym")));
+		ctSym.putNextEntry(new ZipEntry("789AB/java.base/java/lang/Object.sig"));
+		ctSym.putNextEntry(new ZipEntry("9AB-modules/java.base/module-info.sig"));
+		ctSym.close();
+
+		RuleCompilerProbeToolchainAware rule = new RuleCompilerProbeToolchainAware();
+		rule.setRelease("6");
+		try
+		{
+			rule.execute(helper);
+			fail("ct.sym has no data for release 6");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("which provides releases [7, 8, 9, 10, 11, 12]"));
+		}
+		verify(compiler, never()).compile(any(CompilerConfiguration.class));
+	}
+}
@@ -0,0 +1,251 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.compiler.Compiler;
+import org.codehaus.plexus.compiler.manager.CompilerManager;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Paul Moloney
+ * End to end harness running RuleJavaVersionToolchainAware across a simulated reactor against fake jdk homes
+ * whose javac is a shell script, so no real jdk is needed. It is skipped unless enabled with -Dtoolchain.perf=true
+ * and can be scaled up with e.g. -Dtoolchain.perf.modules=500 -Dtoolchain.perf.threads=16 -Dtoolchain.perf.latency=50
+ */
+public class RuleJavaVersionToolchainAwarePerformanceTest
+{
+    private static final boolean ENABLED = Boolean.getBoolean("toolchain.perf");
+
+    private static final int MODULES = Integer.getInteger("toolchain.perf.modules", 20).intValue();
+
+    private static final int THREADS = Integer.getInteger("toolchain.perf.threads", 4).intValue();
+
+    private static final int LATENCY_MILLIS = Integer.getInteger("toolchain.perf.latency", 0).intValue();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp()
+    {
+        Assume.assumeTrue(ENABLED);
+        Assume.assumeTrue(new File("/bin/sh").isFile());
+    }
+
+    @Test
+    public void testLegacyJdkOnStderr() throws Exception
+    {
+        FakeJdk jdk = new FakeJdk(folder.newFolder("jdk1.6.0_45"), "javac 1.6.0_45", true, LATENCY_MILLIS);
+        runReactor(jdk, "[1.6,1.7)", 1);
+        runReactor(jdk, "[1.6,1.7)", THREADS);
+    }
+
+    @Test
+    public void testModernJdkOnStdout() throws Exception
+    {
+        FakeJdk jdk = new FakeJdk(folder.newFolder("jdk-17.0.9"), "javac 17.0.9", false, LATENCY_MILLIS);
+        runReactor(jdk, "[17,18)", 1);
+        runReactor(jdk, "[17,18)", THREADS);
+    }
+
+    private void runReactor(final FakeJdk jdk, final String range, int threads) throws Exception
+    {
+        final List<EnforcerRuleHelper> helpers = new ArrayList<EnforcerRuleHelper>();
+        for (int i = 0; i < MODULES; i++)
+        {
+            helpers.add(stubModule(jdk));
+        }
+        final AtomicLong allocated = new AtomicLong();
+        List<Callable<Object>> modules = new ArrayList<Callable<Object>>();
+        for (final EnforcerRuleHelper helper : helpers)
+        {
+            modules.add(new Callable<Object>() {
+                public Object call() throws Exception
+                {
+                    long before = allocatedBytes();
+                    RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+                    rule.setCompilerId("javac");
+                    rule.setVersion(range);
+                    rule.execute(helper);
+                    allocated.addAndGet(allocatedBytes() - before);
+                    return null;
+                }
+            });
+        }
+
+        int forksBefore = jdk.getForkCount();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            for (Future<Object> module : pool.invokeAll(modules))
+            {
+                module.get();
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int forks = jdk.getForkCount() - forksBefore;
+
+        System.out.println("[toolchain-perf] " + jdk.getVersionLine() + " modules=" + MODULES + " threads=" + threads
+            + " latency=" + LATENCY_MILLIS + "ms wall=" + wallMillis + "ms forks=" + forks
+            + " forks/module=" + ((double) forks / MODULES)
+            + " allocated=" + (allocated.get() < 0 ? "n/a" : (allocated.get() / 1024) + "KiB"));
+        assertTrue("Every module should be verified by at most one fork", forks <= MODULES);
+    }
+
+    private EnforcerRuleHelper stubModule(FakeJdk jdk) throws Exception
+    {
+        EnforcerRuleHelper helper = mock(EnforcerRuleHelper.class);
+        MavenSession session = mock(MavenSession.class);
+        ToolchainManager tcManager = mock(ToolchainManager.class);
+        CompilerManager manager = mock(CompilerManager.class);
+        Toolchain toolChain = mock(Toolchain.class);
+
+        when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+        when(helper.getComponent(CompilerManager.class)).thenReturn(manager);
+        when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+        when(helper.evaluate("${basedir}")).thenReturn("");
+        when(helper.evaluate("${session}")).thenReturn(session);
+        when(helper.getLog()).thenReturn(mock(Log.class));
+        when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+        when(toolChain.findTool("javac")).thenReturn(jdk.getJavac().getAbsolutePath());
+        when(manager.getCompiler("javac")).thenReturn(mock(Compiler.class));
+        return helper;
+    }
+
+    /**
+     * @return bytes allocated by the current thread or a negative value when the jvm can not tell
+     */
+    private static long allocatedBytes()
+    {
+        try
+        {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            return ((Long) method.invoke(threads, Long.valueOf(Thread.currentThread().getId()))).longValue();
+        }
+        catch (Exception e)
+        {
+            return Long.MIN_VALUE / 2;
+        }
+    }
+
+    /**
+     * A jdk home whose bin/javac is a shell script printing a canned version line and counting its invocations
+     */
+    static class FakeJdk
+    {
+        private final File javac;
+
+        private final File forkLog;
+
+        private final String versionLine;
+
+        FakeJdk(File home, String versionLine, boolean onStderr, int latencyMillis) throws IOException, InterruptedException
+        {
+            this.versionLine = versionLine;
+            File bin = new File(home, "bin");
+            bin.mkdirs();
+            javac = new File(bin, "javac");
+            forkLog = new File(home, "forks.log");
+            forkLog.createNewFile();
+
+            Writer writer = new FileWriter(javac);
+            try
+            {
+                writer.write("#!/bin/sh\n");
+                writer.write("echo fork >> '" + forkLog.getAbsolutePath() + "'\n");
+                if (latencyMillis > 0)
+                {
+                    writer.write("sleep " + (latencyMillis / 1000.0) + "\n");
+                }
+                writer.write("echo '" + versionLine + "'" + (onStderr ? " 1>&2" : "") + "\n");
+            }
+            finally
+            {
+                IOUtil.close(writer);
+            }
+            Runtime.getRuntime().exec(new String[] { "chmod", "755", javac.getAbsolutePath() }).waitFor();
+        }
+
+        File getJavac()
+        {
+            return javac;
+        }
+
+        String getVersionLine()
+        {
+            return versionLine;
+        }
+
+        int getForkCount() throws IOException
+        {
+            BufferedReader reader = new BufferedReader(new FileReader(forkLog));
+            try
+            {
+                int count = 0;
+                while (null != reader.readLine())
+                {
+                    count++;
+                }
+                return count;
+            }
+            finally
+            {
+                IOUtil.close(reader);
+            }
+        }
+    }
+}
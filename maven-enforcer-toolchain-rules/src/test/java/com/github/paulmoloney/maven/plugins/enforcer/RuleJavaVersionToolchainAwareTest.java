@@ -0,0 +1,512 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.compiler.manager.CompilerManager;
+import org.codehaus.plexus.compiler.Compiler;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleJavaVersionToolchainAware.
+ */
+public class RuleJavaVersionToolchainAwareTest 
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private EnforcerRuleHelper helper;
+	private MavenSession session;
+	private ToolchainManager tcManager;
+	private CompilerManager manager;
+	private Log log;
+	private Toolchain toolChain;
+	private ProcessExecutor process;
+	private Compiler compiler;
+	
+	@Before
+	public void setUp() throws Exception
+	{
+		helper = mock(EnforcerRuleHelper.class);
+		session = mock(MavenSession.class);
+		tcManager = mock(ToolchainManager.class);
+		manager = mock(CompilerManager.class);
+		log = mock(Log.class);		
+		toolChain = mock(Toolchain.class);
+	    process = mock(ProcessExecutor.class);
+	    compiler = mock(Compiler.class);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{		
+		verifyNoMoreInteractions(helper, session, tcManager, manager, toolChain, compiler);
+        validateMockitoUsage();		
+	}
+	
+	@Test
+	public void testFoundExactMatchToolChain() throws Exception
+	{		
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String executable = "/opt/javac";
+		String compilerId = "javac";
+		when(toolChain.findTool("javac")).thenReturn(executable);
+		when(process.runApplication()).thenReturn("javac 1.5.0_01");
+				
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("1.5.0-1");
+		rule.setProcess(process);
+		rule.execute(helper);
+		
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");		
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+		
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("javac");
+	}
+	
+	@Test
+	public void testFoundOutOfDateToolChain() throws Exception
+	{		
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String executable = "/opt/javac";
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn(executable);
+		when(process.runApplication()).thenReturn("javac 1.5.0_01");
+				
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("1.5.0-22");
+		rule.setProcess(process);
+		String ruleFailureMessage = null;
+		try
+		{
+		    rule.execute(helper);
+		}
+		catch (EnforcerRuleException e) {
+			ruleFailureMessage = e.getMessage();
+			assertThat(ruleFailureMessage, is("Detected JDK Version: 1.5.0-1 is not in the allowed range 1.5.0-22."));
+		}
+		
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");		
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+		
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("javac");
+	}
+
+	@Test
+	public void testFoundNewerToolChain() throws Exception
+	{		
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String executable = "/opt/javac";
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn(executable);
+		when(process.runApplication()).thenReturn("javac 1.6.0_01");
+				
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("1.5.0-22");
+		rule.setProcess(process);
+		String ruleFailureMessage = null;
+		try
+		{
+		    rule.execute(helper);
+		}
+		catch (EnforcerRuleException e) {
+			ruleFailureMessage = e.getMessage();
+			assertThat(ruleFailureMessage, is("Detected JDK Version: 1.5.0-1 is not in the allowed range 1.5.0-22."));
+		}
+		
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");		
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+		
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("javac");
+	}
+	
+	@Test
+	public void testStampSkipsUnchangedToolChain() throws Exception
+	{
+		File buildDirectory = folder.newFolder("target");
+		File javac = folder.newFile("javac");
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${project.build.directory}")).thenReturn(buildDirectory.getAbsolutePath());
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn(javac.getAbsolutePath());
+		when(process.runApplication()).thenReturn("javac 1.6.0_01");
+
+		for (int i = 0; i < 2; i++)
+		{
+			RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+			rule.setCompilerId(compilerId);
+			rule.setVersion("[1.6,1.7)");
+			rule.setProcess(process);
+			rule.execute(helper);
+		}
+
+		assertTrue(new File(buildDirectory, "enforcer-toolchain-rules/java-version-javac.stamp").isFile());
+		verify(process, times(1)).runApplication();
+		verify(helper, times(2)).getComponent(ToolchainManager.class);
+		verify(helper, times(2)).evaluate("${project.build.outputDirectory}");
+		verify(helper, times(2)).evaluate("${basedir}");
+		verify(helper, times(2)).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper, times(2)).evaluate("${session}");
+		verify(tcManager, times(2)).getToolchainFromBuildContext("jdk", session);
+
+		verify(helper, times(4)).getLog();
+		verify(toolChain, times(2)).findTool("javac");
+	}
+
+	@Test
+	public void testReleaseFileAvoidsFork() throws Exception
+	{
+		File jdkHome = folder.newFolder("jdk1.6");
+		File javac = new File(jdkHome, "bin/javac");
+		javac.getParentFile().mkdirs();
+		javac.createNewFile();
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "JAVA_VERSION=\"1.6.0_45\"\n");
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn(javac.getAbsolutePath());
+
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("[1.6.0-45,1.7)");
+		rule.setProcess(process);
+		rule.execute(helper);
+
+		verify(process, never()).runApplication();
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("javac");
+	}
+
+	@Test
+	public void testImplementationReadFromReleaseFile() throws Exception
+	{
+		File jdkHome = folder.newFolder("jdk-17.0.9+9");
+		File javac = new File(jdkHome, "bin/javac");
+		javac.getParentFile().mkdirs();
+		javac.createNewFile();
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "IMPLEMENTOR=\"Eclipse Adoptium\"\n"
+			+ "IMPLEMENTOR_VERSION=\"Temurin-17.0.9+9\"\nJAVA_RUNTIME_VERSION=\"17.0.9+9\"\nJAVA_VERSION=\"17.0.9\"\n"
+			+ "JVM_VARIANT=\"Hotspot\"\n");
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn(javac.getAbsolutePath());
+
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("[17,18)");
+		rule.setImplementor("Eclipse Adoptium");
+		rule.setImplementorVersion("Temurin-.*");
+		rule.setRuntimeVersion("17\\.0\\.9\\+9");
+		rule.setProcess(process);
+		rule.execute(helper);
+
+		rule.setJvmVariant("OpenJ9");
+		try
+		{
+			rule.execute(helper);
+			fail("a Hotspot jdk is not OpenJ9");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), is("JVM_VARIANT 'Hotspot' in " + new File(jdkHome.getCanonicalFile(), "release")
+				+ " does not match OpenJ9"));
+		}
+
+		verify(process, never()).runApplication();
+		verify(helper, times(2)).getComponent(ToolchainManager.class);
+		verify(helper, times(2)).evaluate("${project.build.outputDirectory}");
+		verify(helper, times(2)).evaluate("${basedir}");
+		verify(helper, times(2)).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper, times(2)).evaluate("${session}");
+		verify(tcManager, times(2)).getToolchainFromBuildContext("jdk", session);
+
+		verify(helper, times(4)).getLog();
+		verify(toolChain, times(2)).findTool("javac");
+	}
+
+	@Test
+	public void testEclipseVersionReadFromJarManifest() throws Exception
+	{
+		File ecj = folder.newFile("ecj.jar");
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue("Bundle-Version", "3.33.0.v20230218-1114");
+		new JarOutputStream(new FileOutputStream(ecj), manifest).close();
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.getComponent(CompilerManager.class)).thenReturn(manager);
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String compilerId = "eclipse";
+		when(toolChain.findTool(compilerId)).thenReturn(ecj.getAbsolutePath());
+		when(manager.getCompiler(compilerId)).thenReturn(compiler);
+
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("[3.30,4)");
+		rule.setProcess(process);
+		rule.execute(helper);
+
+		verify(process, never()).runApplication();
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+		verify(manager).getCompiler(compilerId);
+
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("eclipse");
+	}
+
+	@Test
+	public void testCompilerReleaseAboveToolChainFails() throws Exception
+	{
+		Plugin plugin = new Plugin();
+		plugin.setArtifactId("maven-compiler-plugin");
+		Xpp3Dom configuration = new Xpp3Dom("configuration");
+		Xpp3Dom release = new Xpp3Dom("release");
+		release.setValue("17");
+		configuration.addChild(release);
+		plugin.setConfiguration(configuration);
+		MavenProject project = mock(MavenProject.class);
+		when(project.getBuildPlugins()).thenReturn(Collections.singletonList(plugin));
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${project}")).thenReturn(project);
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn("/opt/javac");
+		when(process.runApplication()).thenReturn("javac 11.0.21");
+
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("[11,)");
+		rule.setProcess(process);
+		rule.setCheckCompilerConfiguration(true);
+		try
+		{
+			rule.execute(helper);
+			fail("release 17 can not be compiled by jdk 11");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), is("maven-compiler-plugin release 17 requires a jdk 17 or later toolchain but the toolchain jdk is 11.0.21"));
+		}
+
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper).evaluate("${project}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("javac");
+	}
+
+	@Test
+	public void testPublishesDetectedProperties() throws Exception
+	{
+		File jdkHome = folder.newFolder("jdk-17");
+		File javac = new File(jdkHome, "bin/javac");
+		javac.getParentFile().mkdirs();
+		javac.createNewFile();
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "JAVA_VERSION=\"17.0.9\"\n");
+		MavenProject project = mock(MavenProject.class);
+		Properties properties = new Properties();
+		when(project.getProperties()).thenReturn(properties);
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${project}")).thenReturn(project);
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(toolChain);
+		String compilerId = "javac";
+		when(toolChain.findTool(compilerId)).thenReturn(javac.getAbsolutePath());
+
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("[17,)");
+		rule.setProcess(process);
+		rule.setPublishProperties(true);
+		rule.execute(helper);
+
+		assertThat(properties.getProperty("toolchain.jdk.executable"), is(javac.getAbsolutePath()));
+		assertThat(properties.getProperty("toolchain.jdk.home"), is(jdkHome.getCanonicalPath()));
+		assertThat(properties.getProperty("toolchain.jdk.version"), is("17.0.9"));
+		assertThat(properties.getProperty("toolchain.jdk.major"), is("17"));
+		assertThat(properties.getProperty("toolchain.jdk.minor"), is("0"));
+		assertThat(properties.getProperty("toolchain.jdk.feature"), is("17"));
+		assertThat(properties.getProperty("toolchain.jdk.fingerprint").length(), is(40));
+		verify(process, never()).runApplication();
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper).evaluate("${project}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+
+		verify(helper, times(2)).getLog();
+		verify(toolChain).findTool("javac");
+	}
+
+	@Test
+	public void testNoValidExecutableFound() throws Exception
+	{		
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(tcManager);
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(session);
+		when(helper.getLog()).thenReturn(log);
+		when(tcManager.getToolchainFromBuildContext("jdk", session)).thenReturn(null);
+		String compilerId = "javac";
+		when(session.getSystemProperties()).thenReturn(new Properties());
+		when(session.getUserProperties()).thenReturn(new Properties());
+		
+		RuleJavaVersionToolchainAware rule = new RuleJavaVersionToolchainAware();
+		rule.setCompilerId(compilerId);
+		rule.setVersion("1.5.0-22");
+		rule.setProcess(process);
+		rule.setFallback(true);
+		String ruleFailureMessage = null;
+		try
+		{
+		    rule.execute(helper);
+		}
+		catch (EnforcerRuleException e) {
+			ruleFailureMessage = e.getMessage();
+			assertThat(ruleFailureMessage, is("No valid executable found, aborting"));
+		}
+		
+		verify(helper).getComponent(ToolchainManager.class);
+		verify(helper).evaluate("${project.build.outputDirectory}");
+		verify(helper).evaluate("${basedir}");		
+		verify(helper).evaluate("${project.build.directory}");
+		verify(helper, never()).getComponent(CompilerManager.class);
+		verify(helper).evaluate("${session}");
+		verify(tcManager).getToolchainFromBuildContext("jdk", session);
+		
+		verify(helper, times(2)).getLog();
+		verify(session).getSystemProperties();
+		verify(session).getUserProperties();
+	}	
+}
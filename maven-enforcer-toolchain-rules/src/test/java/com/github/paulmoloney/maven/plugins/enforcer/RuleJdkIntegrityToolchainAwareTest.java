@@ -0,0 +1,116 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItemInArray;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleJdkIntegrityToolchainAware.
+ */
+public class RuleJdkIntegrityToolchainAwareTest extends AbstractToolChainAwareRuleTestCase
+{
+	private File jdkHome;
+	private File cacheDirectory;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		jdkHome = newJdkHome("jdk-11");
+		cacheDirectory = folder.newFolder("cache");
+		FileUtils.fileWrite(new File(jdkHome, "bin/javac").getAbsolutePath(), "#!/bin/sh\n");
+		new File(jdkHome, "lib").mkdirs();
+		FileUtils.fileWrite(new File(jdkHome, "lib/modules").getAbsolutePath(), "modules image");
+	}
+
+	@Test
+	public void testBaselineRecordedThenOverwriteDetected() throws Exception
+	{
+		newRule().execute(helper);
+		newRule().execute(helper);
+
+		FileUtils.fileWrite(new File(jdkHome, "lib/modules").getAbsolutePath(), "truncated");
+		try
+		{
+			newRule().execute(helper);
+			fail("lib/modules was overwritten");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("lib/modules has changed"));
+			assertThat(e.getMessage(), containsString("delete " + new File(cacheDirectory, "integrity")));
+			assertFalse(e.getMessage().contains("bin/javac"));
+		}
+	}
+
+	@Test
+	public void testInPlaceUpdateRecordsNewBaseline() throws Exception
+	{
+		File release = new File(jdkHome, "release");
+		FileUtils.fileWrite(release.getAbsolutePath(), "JAVA_RUNTIME_VERSION=\"11.0.20+8\"\nJAVA_VERSION=\"11.0.20\"\n");
+		newRule().execute(helper);
+
+		FileUtils.fileWrite(new File(jdkHome, "lib/modules").getAbsolutePath(), "updated modules image");
+		FileUtils.fileWrite(release.getAbsolutePath(), "JAVA_RUNTIME_VERSION=\"11.0.21+10\"\nJAVA_VERSION=\"11.0.21\"\n");
+		newRule().execute(helper);
+
+		assertThat(new File(cacheDirectory, "integrity").list(), hasItemInArray(endsWith("-11.0.20_8.sha256")));
+		assertThat(new File(cacheDirectory, "integrity").list(), hasItemInArray(endsWith("-11.0.21_10.sha256")));
+	}
+
+	@Test
+	public void testManifestMismatchFails() throws Exception
+	{
+		File manifest = folder.newFile("jdk.sha256");
+		FileUtils.fileWrite(manifest.getAbsolutePath(),
+			"fce9b9d4a3e0b4f3d1f1d9c1e1b4d3b0a9f5e2c1d0b9a8f7e6d5c4b3a2f1e0d9  lib/modules\n"
+			+ "fce9b9d4a3e0b4f3d1f1d9c1e1b4d3b0a9f5e2c1d0b9a8f7e6d5c4b3a2f1e0d9 *lib/tools.jar\n");
+
+		RuleJdkIntegrityToolchainAware rule = newRule();
+		rule.setManifest(manifest);
+		try
+		{
+			rule.execute(helper);
+			fail("Checksums do not match");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("lib/modules has changed"));
+			assertThat(e.getMessage(), containsString("lib/tools.jar is missing"));
+		}
+	}
+
+	private RuleJdkIntegrityToolchainAware newRule()
+	{
+		RuleJdkIntegrityToolchainAware rule = new RuleJdkIntegrityToolchainAware();
+		rule.setCacheDirectory(cacheDirectory);
+		return rule;
+	}
+}
@@ -0,0 +1,246 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.apache.maven.enforcer.rule.api.EnforcerRuleHelper;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleJdkMatrixToolchainAware.
+ */
+public class RuleJdkMatrixToolchainAwareTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+	private EnforcerRuleHelper helper;
+	private Log log;
+	private RuleJdkMatrixToolchainAware rule;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		helper = mock(EnforcerRuleHelper.class);
+		log = mock(Log.class);
+		when(helper.getComponent(ToolchainManager.class)).thenReturn(mock(ToolchainManager.class));
+		when(helper.evaluate("${project.build.outputDirectory}")).thenReturn("");
+		when(helper.evaluate("${basedir}")).thenReturn("");
+		when(helper.evaluate("${session}")).thenReturn(mock(MavenSession.class));
+		when(helper.getLog()).thenReturn(log);
+
+		File toolchains = folder.newFile("toolchains.xml");
+		FileUtils.fileWrite(toolchains.getAbsolutePath(), "<toolchains>"
+			+ toolchain("1.8", "oracle", newJdk("jdk-8", "1.8.0_392"))
+			+ toolchain("11", "temurin", newJdk("jdk-11", "11.0.21"))
+			+ toolchain("17", "temurin", newJdk("jdk-17", "17.0.9"))
+			+ "</toolchains>");
+
+		rule = new RuleJdkMatrixToolchainAware();
+		rule.setToolchainsFile(toolchains);
+	}
+
+	@Test
+	public void testAllJdksInRangePass() throws Exception
+	{
+		List<JdkRequirement> jdks = new ArrayList<JdkRequirement>();
+		jdks.add(requirement("version", "1.8", "[1.8.0-300,1.9)"));
+		jdks.add(requirement("vendor", "temurin", "[11,12)"));
+		jdks.add(requirement("version", "[17,18)", "17.0.9"));
+		rule.setJdkRequirements(jdks);
+
+		rule.execute(helper);
+		verify(log).info(argThat(containsString("PASSED jdk {vendor=temurin}: " + folder.getRoot() + "/jdk-11 11.0.21 is in [11,12)")));
+	}
+
+	@Test
+	public void testEveryFailingJdkIsReported() throws Exception
+	{
+		List<JdkRequirement> jdks = new ArrayList<JdkRequirement>();
+		jdks.add(requirement("version", "11", "[11.0.22,12)"));
+		jdks.add(requirement("version", "21", "[21,22)"));
+		jdks.add(requirement("version", "17", "[17,18)"));
+		rule.setJdkRequirements(jdks);
+		rule.setThreads(2);
+
+		try
+		{
+			rule.execute(helper);
+			fail("jdk 11 is too old and there is no jdk 21");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("FAILED jdk {version=11}: " + folder.getRoot() + "/jdk-11 11.0.21 is not in [11.0.22,12)"));
+			assertThat(e.getMessage(), containsString("FAILED jdk {version=21}: no jdk toolchain provides these requirements"));
+			assertThat(e.getMessage(), containsString("PASSED jdk {version=17}"));
+		}
+	}
+
+	@Test
+	public void testInvalidRangesAreReportedWithTheOtherJdks() throws Exception
+	{
+		List<JdkRequirement> jdks = new ArrayList<JdkRequirement>();
+		jdks.add(requirement("version", "11", "[11,"));
+		jdks.add(requirement("version", "[17", "[17,18)"));
+		jdks.add(requirement("version", "1.8", "[1.8,1.9)"));
+		rule.setJdkRequirements(jdks);
+
+		try
+		{
+			rule.execute(helper);
+			fail("Two of the jdks have invalid ranges");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("FAILED jdk {version=11}: invalid range [11,"));
+			assertThat(e.getMessage(), containsString("FAILED jdk {version=[17}: invalid version requirement [17"));
+			assertThat(e.getMessage(), containsString("PASSED jdk {version=1.8}"));
+		}
+	}
+
+	@Test
+	public void testDefaultsToToolchainsFileOfTheBuild() throws Exception
+	{
+		File toolchains = folder.newFile("other-toolchains.xml");
+		FileUtils.fileWrite(toolchains.getAbsolutePath(), "<toolchains>"
+			+ toolchain("21", "temurin", newJdk("jdk-21", "21.0.1")) + "</toolchains>");
+		MavenExecutionRequest request = mock(MavenExecutionRequest.class);
+		when(request.getUserToolchainsFile()).thenReturn(toolchains);
+		MavenSession session = mock(MavenSession.class);
+		when(session.getRequest()).thenReturn(request);
+		when(helper.evaluate("${session}")).thenReturn(session);
+
+		rule = new RuleJdkMatrixToolchainAware();
+		rule.setJdkRequirements(Collections.singletonList(requirement("version", "21", "[21,22)")));
+		rule.execute(helper);
+
+		verify(log).info(argThat(containsString("Jdk matrix from " + toolchains)));
+	}
+
+	@Test
+	public void testJdkHomeFromEnvironment() throws Exception
+	{
+		File jdkHome = newJdk("jdk-21", "21.0.1");
+		File toolchains = folder.newFile("env-toolchains.xml");
+		FileUtils.fileWrite(toolchains.getAbsolutePath(), "<toolchains><toolchain><type>jdk</type><provides>"
+			+ "<version>21.0</version></provides><configuration><jdkHome>${env.JAVA_HOME_21}</jdkHome></configuration>"
+			+ "</toolchain></toolchains>");
+
+		rule.setToolchainsFile(toolchains);
+		rule.setEnvironment(Collections.singletonMap("JAVA_HOME_21", jdkHome.getAbsolutePath()));
+		rule.setJdkRequirements(Collections.singletonList(requirement("version", "21", "[21,22)")));
+		rule.execute(helper);
+
+		verify(log).info(argThat(containsString("PASSED jdk {version=21}: " + jdkHome + " 21.0.1 is in [21,22)")));
+	}
+
+	@Test
+	public void testUserToolchainsTakePrecedenceOverGlobalOnes() throws Exception
+	{
+		File user = folder.newFile("user-toolchains.xml");
+		FileUtils.fileWrite(user.getAbsolutePath(), "<toolchains>"
+			+ toolchain("21", "temurin", newJdk("jdk-21", "21.0.1")) + "</toolchains>");
+		File mavenHome = folder.newFolder("maven");
+		new File(mavenHome, "conf").mkdirs();
+		FileUtils.fileWrite(new File(mavenHome, "conf/toolchains.xml").getAbsolutePath(), "<toolchains>"
+			+ toolchain("21", "temurin", newJdk("jdk-21-global", "21.0.2"))
+			+ toolchain("11", "temurin", newJdk("jdk-11-global", "11.0.21")) + "</toolchains>");
+		MavenExecutionRequest request = mock(MavenExecutionRequest.class);
+		when(request.getUserToolchainsFile()).thenReturn(user);
+		MavenSession session = mock(MavenSession.class);
+		when(session.getRequest()).thenReturn(request);
+		when(helper.evaluate("${session}")).thenReturn(session);
+		String previous = System.getProperty("maven.home");
+		System.setProperty("maven.home", mavenHome.getAbsolutePath());
+		try
+		{
+			List<JdkRequirement> jdks = new ArrayList<JdkRequirement>();
+			jdks.add(requirement("version", "21", "[21.0.1]"));
+			jdks.add(requirement("version", "11", "[11,12)"));
+			rule = new RuleJdkMatrixToolchainAware();
+			rule.setJdkRequirements(jdks);
+			rule.execute(helper);
+		}
+		finally
+		{
+			if (null == previous)
+			{
+				System.clearProperty("maven.home");
+			}
+			else
+			{
+				System.setProperty("maven.home", previous);
+			}
+		}
+
+		verify(log).info(argThat(containsString("PASSED jdk {version=11}: " + folder.getRoot() + "/jdk-11-global 11.0.21")));
+	}
+
+	@Test(expected = EnforcerRuleException.class)
+	public void testMissingToolchainsFileFails() throws Exception
+	{
+		rule.setJdkRequirements(Collections.singletonList(requirement("version", "11", null)));
+		rule.setToolchainsFile(new File(folder.getRoot(), "missing.xml"));
+
+		rule.execute(helper);
+	}
+
+	private File newJdk(String name, String version) throws Exception
+	{
+		File jdkHome = folder.newFolder(name);
+		File javac = new File(jdkHome, "bin/javac");
+		javac.getParentFile().mkdirs();
+		FileUtils.fileWrite(javac.getAbsolutePath(), "#!/bin/sh\nexit 1\n");
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "JAVA_VERSION=\"" + version + "\"\n");
+		return jdkHome;
+	}
+
+	private static String toolchain(String version, String vendor, File jdkHome)
+	{
+		return "<toolchain><type>jdk</type><provides><version>" + version + "</version><vendor>" + vendor
+			+ "</vendor></provides><configuration><jdkHome>" + jdkHome.getAbsolutePath() + "</jdkHome></configuration></toolchain>";
+	}
+
+	private static JdkRequirement requirement(String key, String value, String range)
+	{
+		JdkRequirement requirement = new JdkRequirement();
+		requirement.setRequirements(Collections.singletonMap(key, value));
+		requirement.setRange(range);
+		return requirement;
+	}
+}
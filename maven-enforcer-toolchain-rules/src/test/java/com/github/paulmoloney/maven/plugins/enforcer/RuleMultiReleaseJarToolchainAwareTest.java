@@ -0,0 +1,211 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleMultiReleaseJarToolchainAware.
+ */
+public class RuleMultiReleaseJarToolchainAwareTest extends AbstractToolChainAwareRuleTestCase
+{
+	private File outputDirectory;
+	private RuleMultiReleaseJarToolchainAware rule;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		File jdkHome = newJdkHome("jdk-17");
+		FileUtils.fileWrite(new File(jdkHome, "release").getAbsolutePath(), "JAVA_VERSION=\"17.0.9\"\n");
+		outputDirectory = newOutputDirectory();
+
+		rule = new RuleMultiReleaseJarToolchainAware();
+	}
+
+	@Test
+	public void testLayersWithinTheirLevelsPass() throws Exception
+	{
+		rule.setJarFile(writeJar(20000, 52, 61, true));
+		rule.setBaseRelease("8");
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testClassesAboveTheirLayerFail() throws Exception
+	{
+		rule.setJarFile(writeJar(1000, 61, 65, true));
+		rule.setBaseRelease("8");
+		try
+		{
+			rule.execute(helper);
+			fail("a base class is java 17 and a java 21 class is in layer 17");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("Found 2 classes"));
+			assertThat(e.getMessage(), containsString("a/Base999.class is java 17 (class version 61) above the base release 8"));
+			assertThat(e.getMessage(), containsString("META-INF/versions/17/a/Newest.class is java 21 (class version 65) above its layer META-INF/versions/17"));
+		}
+	}
+
+	@Test
+	public void testOutputDirectoryAboveToolchainFails() throws Exception
+	{
+		writeClass(new File(outputDirectory, "a/Base.class"), 52);
+		writeClass(new File(outputDirectory, "META-INF/versions/11/a/Base.class"), 55);
+		writeClass(new File(outputDirectory, "META-INF/versions/21/a/Base.class"), 65);
+		rule.setThreads(2);
+		try
+		{
+			rule.execute(helper);
+			fail("the toolchain jdk 17 can not have compiled java 21 classes");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("META-INF/versions/21/a/Base.class is java 21 (class version 65) above the toolchain jdk 17"));
+			assertFalse(e.getMessage().contains("versions/11"));
+		}
+	}
+
+	@Test
+	public void testBaseClassesBelowLowestLayerByDefault() throws Exception
+	{
+		writeClass(new File(outputDirectory, "a/Base.class"), 61);
+		writeClass(new File(outputDirectory, "META-INF/versions/17/a/Base.class"), 61);
+		try
+		{
+			rule.execute(helper);
+			fail("base classes of the same level as the lowest layer make the layer pointless");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("a/Base.class is java 17 (class version 61) above the base release 16"));
+		}
+
+		writeClass(new File(outputDirectory, "a/Base.class"), 60);
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testModuleDescriptorAboveBaseReleasePasses() throws Exception
+	{
+		writeClass(new File(outputDirectory, "a/Base.class"), 52);
+		writeClass(new File(outputDirectory, "module-info.class"), 53);
+		rule.setBaseRelease("8");
+		rule.execute(helper);
+
+		writeClass(new File(outputDirectory, "module-info.class"), 52);
+		try
+		{
+			rule.execute(helper);
+			fail("module descriptors need java 9");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("module-info.class is java 8 (class version 52) below java 9"));
+		}
+	}
+
+	@Test
+	public void testVersionsOfPlainJarAreNotLayers() throws Exception
+	{
+		rule.setJarFile(writeJar(10, 52, 65, false));
+		rule.setBaseRelease("8");
+		rule.execute(helper);
+	}
+
+	/**
+	 * Writes a jar of java 8 base classes but the last, a java 11 layer and a class of the given version in layer 17
+	 */
+	private File writeJar(int baseClasses, int lastBaseVersion, int newestVersion, boolean multiRelease) throws Exception
+	{
+		File jar = folder.newFile("multi-release.jar");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+		try
+		{
+			out.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+			out.write(("Manifest-Version: 1.0\r\n" + (multiRelease ? "Multi-Release: true\r\n" : "") + "\r\n").getBytes("UTF-8"));
+			out.closeEntry();
+			for (int i = 0; i < baseClasses; i++)
+			{
+				writeEntry(out, "a/Base" + i + ".class", i == baseClasses - 1 ? lastBaseVersion : 52);
+			}
+			writeEntry(out, "META-INF/versions/11/a/Base0.class", 55);
+			writeEntry(out, "META-INF/versions/17/a/Newest.class", newestVersion);
+		}
+		finally
+		{
+			out.close();
+		}
+		return jar;
+	}
+
+	private static void writeEntry(ZipOutputStream out, String name, int majorVersion) throws Exception
+	{
+		out.putNextEntry(new ZipEntry(name));
+		out.write(classBytes(majorVersion));
+		out.closeEntry();
+	}
+
+	private static void writeClass(File file, int majorVersion) throws Exception
+	{
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try
+		{
+			out.write(classBytes(majorVersion));
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * A class file header followed by enough constant pool like bytes to be deflated over several blocks
+	 */
+	private static byte[] classBytes(int majorVersion)
+	{
+		byte[] bytes = new byte[2048];
+		bytes[0] = (byte) 0xCA;
+		bytes[1] = (byte) 0xFE;
+		bytes[2] = (byte) 0xBA;
+		bytes[3] = (byte) 0xBE;
+		bytes[7] = (byte) majorVersion;
+		for (int i = 8; i < bytes.length; i++)
+		{
+			bytes[i] = (byte) (i * 31 + i / 7);
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,245 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleRequiredModulesToolchainAware.
+ */
+public class RuleRequiredModulesToolchainAwareTest extends AbstractToolChainAwareRuleTestCase
+{
+	private File jdkHome;
+	private File outputDirectory;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		jdkHome = newJdkHome("jdk-11");
+		outputDirectory = newOutputDirectory();
+	}
+
+	@Test
+	public void testRequiredModulesAvailable() throws Exception
+	{
+		writeImage(new File(jdkHome, "lib/modules"), "java.base", "java.sql", "jdk.incubator.vector");
+		writeModuleInfo(new File(outputDirectory, "module-info.class"), "java.base", "jdk.incubator.vector");
+
+		RuleRequiredModulesToolchainAware rule = new RuleRequiredModulesToolchainAware();
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testMissingModuleFails() throws Exception
+	{
+		writeImage(new File(jdkHome, "lib/modules"), "java.base", "java.sql");
+		writeModuleInfo(new File(outputDirectory, "module-info.class"), "java.base", "java.xml.bind");
+
+		RuleRequiredModulesToolchainAware rule = new RuleRequiredModulesToolchainAware();
+		try
+		{
+			rule.execute(helper);
+			fail("java.xml.bind is not in the image");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), is("Modules [java.xml.bind] are not available in the jdk at " + jdkHome.getCanonicalPath()));
+		}
+	}
+
+	@Test
+	public void testLibraryModulesAreLeftToDependencies() throws Exception
+	{
+		writeImage(new File(jdkHome, "lib/modules"), "java.base", "java.sql");
+		writeModuleInfo(new File(outputDirectory, "module-info.class"), "java.base", "org.slf4j", "com.fasterxml.jackson.databind");
+
+		RuleRequiredModulesToolchainAware rule = new RuleRequiredModulesToolchainAware();
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testMissingStaticModuleWarns() throws Exception
+	{
+		writeImage(new File(jdkHome, "lib/modules"), "java.base", "java.sql");
+		writeModuleInfo(new File(outputDirectory, "module-info.class"), "java.base", "static java.compiler");
+
+		RuleRequiredModulesToolchainAware rule = new RuleRequiredModulesToolchainAware();
+		rule.execute(helper);
+
+		verify(log).warn(contains("Modules [java.compiler] required static are not available"));
+	}
+
+	@Test
+	public void testJdkWithoutRuntimeImageFails() throws Exception
+	{
+		writeModuleInfo(new File(outputDirectory, "module-info.class"), "java.base");
+
+		RuleRequiredModulesToolchainAware rule = new RuleRequiredModulesToolchainAware();
+		try
+		{
+			rule.execute(helper);
+			fail("A jdk without lib/modules can not provide modules");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertTrue(e.getMessage().endsWith("require a jdk 9 or later toolchain"));
+		}
+	}
+
+	/**
+	 * Writes a module descriptor holding only a Module attribute with the given requires, "static name" requires
+	 * the module static
+	 */
+	static void writeModuleInfo(File file, String... requires) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0);
+		out.writeShort(53);
+		out.writeShort(6 + 2 * requires.length);
+		out.writeByte(1);
+		out.writeUTF("module-info");
+		out.writeByte(7);
+		out.writeShort(1);
+		out.writeByte(1);
+		out.writeUTF("Module");
+		out.writeByte(1);
+		out.writeUTF("test.module");
+		out.writeByte(19);
+		out.writeShort(4);
+		for (int i = 0; i < requires.length; i++)
+		{
+			out.writeByte(1);
+			out.writeUTF(requires[i].substring(requires[i].indexOf(' ') + 1));
+			out.writeByte(19);
+			out.writeShort(6 + 2 * i);
+		}
+		out.writeShort(0x8000);
+		out.writeShort(2);
+		out.writeShort(0);
+		out.writeShort(0);
+		out.writeShort(0);
+		out.writeShort(0);
+		out.writeShort(1);
+		out.writeShort(3);
+		out.writeInt(16 + 6 * requires.length);
+		out.writeShort(5);
+		out.writeShort(0);
+		out.writeShort(0);
+		out.writeShort(requires.length);
+		for (int i = 0; i < requires.length; i++)
+		{
+			out.writeShort(7 + 2 * i);
+			out.writeShort(requires[i].startsWith("static ") ? 0x0040 : 0);
+			out.writeShort(0);
+		}
+		for (int i = 0; i < 4; i++)
+		{
+			out.writeShort(0);
+		}
+		write(file, bytes.toByteArray());
+	}
+
+	/**
+	 * Writes a little endian jimage index with a /module/module-info.class location per module
+	 */
+	static void writeImage(File file, String... modules) throws IOException
+	{
+		ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		strings.write(0);
+		int base = appendString(strings, "module-info");
+		int extension = appendString(strings, "class");
+		ByteArrayOutputStream locations = new ByteArrayOutputStream();
+		List<Integer> offsets = new ArrayList<Integer>();
+		for (String module : modules)
+		{
+			int name = appendString(strings, module);
+			offsets.add(Integer.valueOf(locations.size()));
+			appendAttribute(locations, 1, name);
+			appendAttribute(locations, 3, base);
+			appendAttribute(locations, 4, extension);
+			locations.write(0);
+		}
+		ByteBuffer image = ByteBuffer.allocate(28 + modules.length * 8 + locations.size() + strings.size());
+		image.order(ByteOrder.LITTLE_ENDIAN);
+		image.putInt(0xCAFEDADA).putInt(0x00010000).putInt(0).putInt(modules.length).putInt(modules.length);
+		image.putInt(locations.size()).putInt(strings.size());
+		for (int i = 0; i < modules.length; i++)
+		{
+			image.putInt(0);
+		}
+		for (Integer offset : offsets)
+		{
+			image.putInt(offset.intValue());
+		}
+		image.put(locations.toByteArray()).put(strings.toByteArray());
+		file.getParentFile().mkdirs();
+		write(file, image.array());
+	}
+
+	static int appendString(ByteArrayOutputStream strings, String value) throws IOException
+	{
+		int offset = strings.size();
+		strings.write(value.getBytes("UTF-8"));
+		strings.write(0);
+		return offset;
+	}
+
+	static void appendAttribute(ByteArrayOutputStream locations, int kind, int value)
+	{
+		locations.write((kind << 3) | 3);
+		locations.write(value >>> 24);
+		locations.write(value >>> 16);
+		locations.write(value >>> 8);
+		locations.write(value);
+	}
+
+	static void write(File file, byte[] bytes) throws IOException
+	{
+		FileOutputStream out = new FileOutputStream(file);
+		try
+		{
+			out.write(bytes);
+		}
+		finally
+		{
+			IOUtil.close(out);
+		}
+	}
+}
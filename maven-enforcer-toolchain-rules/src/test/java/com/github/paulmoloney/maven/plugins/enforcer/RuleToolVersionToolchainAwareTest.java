@@ -0,0 +1,191 @@
+package com.github.paulmoloney.maven.plugins.enforcer;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.maven.enforcer.rule.api.EnforcerRuleException;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.paulmoloney.maven.plugins.utils.ProcessExecutor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static org.hamcrest.Matchers.containsString;
+
+/**
+ * @author Paul Moloney
+ * Unit test for RuleToolVersionToolchainAware.
+ */
+public class RuleToolVersionToolchainAwareTest extends AbstractToolChainAwareRuleTestCase
+{
+	private File protoc;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		protoc = new File(folder.newFolder("protobuf", "bin"), "protoc");
+		FileUtils.fileWrite(protoc.getAbsolutePath(), "#!/bin/sh\necho libprotoc 3.21.12\n");
+		protoc.setExecutable(true);
+
+		when(helper.evaluate("${project.build.directory}")).thenReturn(folder.newFolder("target").getAbsolutePath());
+		when(tcManager.getToolchainFromBuildContext("protobuf", session)).thenReturn(toolChain);
+		when(toolChain.findTool("protoc")).thenReturn(protoc.getAbsolutePath());
+	}
+
+	@Test
+	public void testVersionInRangePassesAndIsStamped() throws Exception
+	{
+		RuleToolVersionToolchainAware rule = newRule("[3.21,4)");
+		rule.setVersionPattern("libprotoc (\\S+)");
+		rule.execute(helper);
+
+		ProcessExecutor process = mock(ProcessExecutor.class);
+		rule = newRule("[3.21,4)");
+		rule.setVersionPattern("libprotoc (\\S+)");
+		rule.setProcess(process);
+		rule.execute(helper);
+		verifyZeroInteractions(process);
+	}
+
+	@Test
+	public void testVersionOutOfRangeFails() throws Exception
+	{
+		RuleToolVersionToolchainAware rule = newRule("[25,)");
+		rule.setVersionParser("second-token");
+		try
+		{
+			rule.execute(helper);
+			fail("protoc 3.21.12 is older than 25");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("3.21.12"));
+		}
+	}
+
+	@Test
+	public void testStdoutVersionWinsOverStderrNoise() throws Exception
+	{
+		// a wrapper script warning on stderr ahead of the version the tool prints on stdout
+		FileUtils.fileWrite(protoc.getAbsolutePath(), "#!/bin/sh\necho 'warning: protoc 2.5 is deprecated' 1>&2\n"
+			+ "echo libprotoc 3.21.12\n");
+		RuleToolVersionToolchainAware rule = newRule("[3.21,4)");
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testVersionOnlyOnStderrIsFound() throws Exception
+	{
+		FileUtils.fileWrite(protoc.getAbsolutePath(), "#!/bin/sh\necho 'no version here'\necho libprotoc 3.21.12 1>&2\n");
+		RuleToolVersionToolchainAware rule = newRule("[3.21,4)");
+		rule.setVersionPattern("libprotoc (\\S+)");
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testHungToolTimesOut() throws Exception
+	{
+		File node = new File(folder.newFolder("node", "bin"), "node");
+		FileUtils.fileWrite(node.getAbsolutePath(), "#!/bin/sh\nsleep 30\necho v18.17.1\n");
+		node.setExecutable(true);
+		when(toolChain.findTool("node")).thenReturn(node.getAbsolutePath());
+
+		RuleToolVersionToolchainAware rule = newRule("[18,)");
+		rule.setTool("node");
+		rule.setTimeout(1);
+		long start = System.currentTimeMillis();
+		try
+		{
+			rule.execute(helper);
+			fail("node never answers");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertTrue(System.currentTimeMillis() - start < 20000);
+		}
+	}
+
+	@Test
+	public void testForeignArchitectureFailsWithoutRunning() throws Exception
+	{
+		byte[] header = new byte[64];
+		header[0] = 0x7F;
+		header[1] = 'E';
+		header[2] = 'L';
+		header[3] = 'F';
+		header[4] = 2;
+		header[5] = 1;
+		// aarch64 on an x86_64 host, otherwise x86_64
+		header[18] = (byte) ("aarch64".equals(System.getProperty("os.arch")) ? 62 : 183);
+		FileUtils.fileWrite(protoc.getAbsolutePath(), "ISO-8859-1", new String(header, "ISO-8859-1"));
+
+		ProcessExecutor process = mock(ProcessExecutor.class);
+		RuleToolVersionToolchainAware rule = newRule("[3.21,4)");
+		rule.setProcess(process);
+		rule.setCheckArchitecture(true);
+		try
+		{
+			rule.execute(helper);
+			fail("protoc is built for another architecture");
+		}
+		catch (EnforcerRuleException e)
+		{
+			assertThat(e.getMessage(), containsString("but the jvm running maven is " + System.getProperty("os.arch")));
+			assertThat(e.getMessage(), containsString("the toolchain is for another architecture"));
+		}
+		verifyZeroInteractions(process);
+
+		// not checked unless asked for, the jvm running maven need not match the host
+		when(process.runApplicationLines()).thenReturn(new String[] { "libprotoc 3.21.12", "" });
+		rule = newRule("[3.21,4)");
+		rule.setProcess(process);
+		rule.execute(helper);
+	}
+
+	@Test
+	public void testProbeProfileRunsJdkToolsWithJvmOptions() throws Exception
+	{
+		File jar = new File(folder.newFolder("jdk-17.0.9", "bin"), "jar");
+		// fails unless given -J options and then prints a notice ahead of its version, as a jvm rejecting an archive does
+		FileUtils.fileWrite(jar.getAbsolutePath(), "#!/bin/sh\ncase \"$1\" in -J-*) ;; *) exit 1 ;; esac\n"
+			+ "echo '[0.011s][warning][cds] Unable to map shared spaces' 1>&2\necho 'jar 17.0.9'\n");
+		jar.setExecutable(true);
+		when(toolChain.findTool("jar")).thenReturn(jar.getAbsolutePath());
+
+		RuleToolVersionToolchainAware rule = newRule("[17,18)");
+		rule.setToolchainType("jdk");
+		rule.setTool("jar");
+		rule.setCacheDirectory(folder.newFolder("cache"));
+		rule.setProbeProfile(true);
+		rule.execute(helper);
+	}
+
+	private RuleToolVersionToolchainAware newRule(String range)
+	{
+		RuleToolVersionToolchainAware rule = new RuleToolVersionToolchainAware();
+		rule.setVersion(range);
+		rule.setToolchainType("protobuf");
+		rule.setTool("protoc");
+		return rule;
+	}
+}